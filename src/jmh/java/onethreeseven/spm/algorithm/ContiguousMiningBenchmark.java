@@ -0,0 +1,64 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.data.ContiguousSPMFGenerator;
+import onethreeseven.spm.model.SequentialPattern;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the contiguous miners (ACSpan, CCSpan, MCSpan and DCSpan) over sequence
+ * databases from {@link ContiguousSPMFGenerator}, for a range of database shapes.
+ * Run with: gradle jmh -PjmhInclude=ContiguousMiningBenchmark
+ * @author Luke Bermingham
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContiguousMiningBenchmark {
+
+    @Param({"acspan", "ccspan", "mcspan", "dcspan"})
+    public String algorithm;
+
+    @Param({"1000", "10000"})
+    public int nSequences;
+
+    @Param({"20", "100"})
+    public int sequenceLength;
+
+    @Param({"20", "1000"})
+    public int nDistinctItems;
+
+    //the minimum support as a fraction of the number of sequences
+    @Param({"0.05"})
+    public double minSupFraction;
+
+    private int[][] sequences;
+    private int minSup;
+    private SPMAlgorithm miner;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(nSequences);
+        gen.setSequenceLength(sequenceLength);
+        gen.setnDistinctItems(nDistinctItems);
+        sequences = gen.generateSequences();
+        minSup = Math.max(2, (int) Math.round(nSequences * minSupFraction));
+
+        switch (algorithm){
+            case "acspan": miner = new ACSpan(); break;
+            case "ccspan": miner = new CCSpan(); break;
+            case "mcspan": miner = new MCSpan(); break;
+            case "dcspan": miner = new DCSpan(); break;
+            default: throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+
+    @Benchmark
+    public Collection<SequentialPattern> mine(){
+        return miner.run(new SPMParameters(sequences, minSup));
+    }
+
+}
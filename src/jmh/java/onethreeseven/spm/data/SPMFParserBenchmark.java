@@ -0,0 +1,68 @@
+package onethreeseven.spm.data;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of parsing a generated SPMF sequence file with the line based {@link SPMFParser},
+ * the byte-level {@link SPMFTokenizer} (what {@link SPMFParser#parseSequences(File)} uses)
+ * and the {@link ParallelSPMFLoader}.
+ * Divide the file size (printed at setup) by the score for the throughput.
+ * Run with: gradle jmh -PjmhInclude=SPMFParserBenchmark
+ * @author Luke Bermingham
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SPMFParserBenchmark {
+
+    @Param({"20000"})
+    public int nSequences;
+
+    @Param({"100"})
+    public int sequenceLength;
+
+    @Param({"100", "100000"})
+    public int nDistinctItems;
+
+    private File spmfFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        spmfFile = File.createTempFile("bench", ".spmf");
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(nSequences);
+        gen.setSequenceLength(sequenceLength);
+        gen.setnDistinctItems(nDistinctItems);
+        gen.generate(spmfFile);
+        System.out.println("SPMF file size: " + spmfFile.length() + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        spmfFile.delete();
+    }
+
+    @Benchmark
+    public int[][] parseLineBased() throws IOException {
+        try(BufferedReader br = new BufferedReader(new FileReader(spmfFile))){
+            return new SPMFParser().parseSequences(br);
+        }
+    }
+
+    @Benchmark
+    public int[][] parseByteLevel(){
+        return new SPMFParser().parseSequences(spmfFile);
+    }
+
+    @Benchmark
+    public int[][] parseParallel(){
+        return new ParallelSPMFLoader().load(spmfFile);
+    }
+
+}
@@ -0,0 +1,86 @@
+package onethreeseven.spm.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of adding sequences to, and querying the frequency of sequences in,
+ * a {@link Trie} and an {@link IntTrie}.
+ * Each invocation adds (or queries) every sequence once, so the scores are per batch of sequences.
+ * Run with: gradle jmh -PjmhInclude=TrieBenchmark
+ * @author Luke Bermingham
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrieBenchmark {
+
+    @Param({"100000"})
+    public int nSequences;
+
+    @Param({"4", "16"})
+    public int sequenceLength;
+
+    @Param({"20", "1000"})
+    public int nDistinctItems;
+
+    private int[][] sequences;
+    private Integer[][] boxedSequences;
+    private Trie<Integer> trie;
+    private IntTrie intTrie;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        Random rand = new Random(137);
+        sequences = new int[nSequences][sequenceLength];
+        boxedSequences = new Integer[nSequences][sequenceLength];
+        for (int i = 0; i < nSequences; i++) {
+            for (int j = 0; j < sequenceLength; j++) {
+                sequences[i][j] = rand.nextInt(nDistinctItems);
+                boxedSequences[i][j] = sequences[i][j];
+            }
+        }
+        trie = new Trie<>();
+        intTrie = new IntTrie();
+        for (int i = 0; i < nSequences; i++) {
+            trie.add(boxedSequences[i]);
+            intTrie.add(sequences[i]);
+        }
+    }
+
+    @Benchmark
+    public Trie<Integer> trieAdd(){
+        Trie<Integer> t = new Trie<>();
+        for (Integer[] sequence : boxedSequences) {
+            t.add(sequence);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public void trieGetFrequencyOf(Blackhole bh){
+        for (Integer[] sequence : boxedSequences) {
+            bh.consume(trie.getFrequencyOf(sequence));
+        }
+    }
+
+    @Benchmark
+    public IntTrie intTrieAdd(){
+        IntTrie t = new IntTrie();
+        for (int[] sequence : sequences) {
+            t.add(sequence);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public void intTrieGetFrequencyOf(Blackhole bh){
+        for (int[] sequence : sequences) {
+            bh.consume(intTrie.getFrequencyOf(sequence));
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.model.IPatternClosure;
+
+/**
+ * Mines all contiguous sequential patterns using a suffix array, see {@link AbstractSuffixArraySPM}.
+ * Produces the same patterns as {@link ACSpan}.
+ * @author Luke Bermingham
+ */
+public class ACSpanSA extends AbstractSuffixArraySPM {
+    @Override
+    protected IPatternClosure getPatternClosure() {
+        return IPatternClosure.NONE;
+    }
+
+    @Override
+    public String toString() {
+        return "ACSpanSA(All-Contiguous)";
+    }
+
+    @Override
+    public String getSimpleName() {
+        return "acspan-sa";
+    }
+
+    @Override
+    public String getPatternType() {
+        return "all contiguous";
+    }
+}
@@ -1,15 +1,25 @@
 package onethreeseven.spm.algorithm;
 
-import onethreeseven.spm.data.SequentialPatternWriter;
+import onethreeseven.spm.data.ArraySequenceSource;
+import onethreeseven.spm.data.AsyncPatternWriter;
+import onethreeseven.spm.data.PatternWriter;
+import onethreeseven.spm.data.SequenceSource;
 import onethreeseven.spm.model.*;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * The basis for contiguous sequential pattern mining
- * using a {@link onethreeseven.spm.model.Trie} to do support
+ * using an {@link onethreeseven.spm.model.IntTrie} to do support
  * and closure checking.
  *
  * Skeleton of the algorithm based on:
@@ -19,6 +29,23 @@ import java.util.List;
  */
 public abstract class AbstractContiguousSPM extends SPMAlgorithm {
 
+    //the database is counted in batches of (at least) this many items
+    private static final int batchItems = 1 << 16;
+    //keep at most this many batches per thread in memory, so uneven batches still balance out
+    private static final int batchesPerThread = 4;
+
+    private int nThreads = 1;
+    private boolean binaryOutput = false;
+    //the minimum support candidates are checked against, subclasses may raise it while mining
+    private int minSup = 1;
+
+    /**
+     * Receives the output patterns one at a time, as they are read from the Trie.
+     */
+    public interface PatternSink{
+        void accept(int[] pattern, int support);
+    }
+
     /////////////////
     //INTERNAL METHODS
     /////////////////
@@ -26,27 +53,38 @@ public abstract class AbstractContiguousSPM extends SPMAlgorithm {
 
     @Override
     protected Collection<SequentialPattern> runImpl(SPMParameters params) {
+        startTimer();
+        this.nThreads = params.getNThreads();
+        this.binaryOutput = params.isBinaryOutput();
         if(params.getOutFile() != null){
-            run(params.getSequences(), params.getMinSup(), params.getOutFile());
+            run(params.getSequenceSource(), params.getMinSup(), params.getOutFile());
             return null;
         }else{
-            return run(params.getSequences(), params.getMinSup());
+            return run(params.getSequenceSource(), params.getMinSup());
         }
     }
 
     /**
      * In the paper this section is referred to as Algorithm 1.
-     * @param db the sequences to process.
+     * @param db the sequences to process, they are scanned once per pattern length.
      * @param minSupAbs the absolute minimum support of a contiguous sequential pattern.
      */
-    private Trie<Integer> runImpl(int[][] db, int minSupAbs){
-        final Trie<Integer> f = new Trie<>();
+    private IntTrie runImpl(SequenceSource db, int minSupAbs){
+        final IntTrie f = new IntTrie();
         final IPatternClosure patternClosure = getPatternClosure();
+        final ForkJoinPool pool = (nThreads > 1) ? new ForkJoinPool(nThreads) : null;
+        this.minSup = minSupAbs;
 
-        int k = 1;
-        //This loop is lines 1-10 in paper - keep generating closed patterns until you can't
-        while(addLengthKPatterns(f, k, minSupAbs, db, patternClosure) > 0 && isRunning.get()){
-            k++;
+        try{
+            int k = 1;
+            //This loop is lines 1-10 in paper - keep generating closed patterns until you can't
+            while(addLengthKPatterns(f, k, db, patternClosure, pool) > 0 && isRunning.get()){
+                k++;
+            }
+        }finally {
+            if(pool != null){
+                pool.shutdown();
+            }
         }
         return f;
     }
@@ -55,43 +93,72 @@ public abstract class AbstractContiguousSPM extends SPMAlgorithm {
      * Given sequences find all 1-patterns that meet the minimum support.
      * @param f The Trie used to store/check support of the patterns.
      * @param k The size of the patterns that should be generated from the sequences.
-     * @param minSup The minimum support.
      * @param db The sequences to split.
      * @param patternClosure The pattern closure to use.
+     * @param pool If non-null, candidates are counted in parallel using this pool.
      * @return the number of length-k potential contiguous sub-sequences added.
      */
-    private int addLengthKPatterns(Trie<Integer> f, int k, int minSup, int[][] db, IPatternClosure patternClosure){
+    private int addLengthKPatterns(IntTrie f, int k, SequenceSource db,
+                                   IPatternClosure patternClosure, ForkJoinPool pool){
+
+        ArrayList<int[]> candidates = (pool == null) ?
+                countLengthKCandidates(f, k, db) : countLengthKCandidates(f, k, db, pool);
+        if(!isRunning.get()){
+            return 0;
+        }
+        minSup = Math.max(minSup, updateMinSup(f, k, candidates, minSup));
+
+        //now check that candidates are valid (and closed) using minimum support count
+        int potentialPatterns = 0;
+        for (int[] candidate : candidates) {
+            if(f.supersede(candidate, minSup, patternClosure)){
+                potentialPatterns++;
+            }
+        }
 
-        ArrayList<Integer[]> candidates = new ArrayList<>();
+        report("level", k, candidates.size(), potentialPatterns, f.getNumNodes(), -1);
+        return potentialPatterns;
+    }
 
-        for (int[] sequence : db) {
+    /**
+     * Count each length-k window of the sequences in the Trie, each window is counted at most once per sequence.
+     * @param f The Trie used to store/check support of the patterns.
+     * @param k The size of the windows.
+     * @param db The sequences to split.
+     * @return The distinct candidates that were counted.
+     */
+    private ArrayList<int[]> countLengthKCandidates(IntTrie f, int k, SequenceSource db){
+
+        final ArrayList<int[]> candidates = new ArrayList<>();
+
+        //each sequence is done with before the next, so the source can hand them over in a reused buffer
+        db.scan((sequence, length) -> {
             if(!isRunning.get()){
-                return 0;
+                return false;
             }
 
-            if(sequence.length < k){
-                continue;
+            if(length < k){
+                return true;
             }
 
-            ContiguousSubSeqIterator iter = new ContiguousSubSeqIterator(k, sequence);
-            while(iter.hasNext()){
+            //each length-k window of the sequence is a candidate, queried in place (no copying or boxing)
+            final int lastStart = length - k;
+            for (int i = 0; i <= lastStart; i++) {
+                //a candidate is only copied out the first time it is seen, i.e. when its node is made
+                final long nNodes = f.getNumNodes();
                 //add each sub-sequence locked and marked (ensures no repeats from same sequence)
-                Integer[] candidate = iter.nextBoxed();
-
                 //check for post-sequence and try to add new candidate if found
                 if(k > 1){
-                    Integer[] post = new Integer[k-1];
-                    System.arraycopy(candidate, 1, post, 0, k-1);
-                    if(f.getFrequencyOf(post) > 0){
-                        if(f.add(candidate, 1, true, true)){
-                            candidates.add(candidate);
+                    if(f.getFrequencyOf(sequence, i + 1, k - 1) > 0){
+                        if(f.add(sequence, i, k, 1, true, true) && f.getNumNodes() > nNodes){
+                            candidates.add(Arrays.copyOfRange(sequence, i, i + k));
                         }
                     }
                 }
                 //a length-1 pattern, no need for pre-post check
                 else{
-                    if(f.add(candidate, k, true, true)){
-                        candidates.add(candidate);
+                    if(f.add(sequence, i, k, k, true, true) && f.getNumNodes() > nNodes){
+                        candidates.add(Arrays.copyOfRange(sequence, i, i + k));
                     }
                 }
             }
@@ -99,17 +166,118 @@ public abstract class AbstractContiguousSPM extends SPMAlgorithm {
             //the same sequence, however, once a sequence has been processed we unlock the the patterns
             //so that new sequences can increase the count for that pattern
             f.unlockAll();
+            return true;
+        });
+        return candidates;
+    }
+
+    /**
+     * Parallel version of {@link #countLengthKCandidates(IntTrie, int, SequenceSource)}.
+     * The database is read in batches of consecutive sequences and each batch counts its windows
+     * into its own Trie (only reading from the shared Trie). The batch Tries are then merged
+     * into the shared Trie in batch order, so the shared Trie ends up exactly as it would
+     * have been had the batches been counted serially. Only a bounded number of batches
+     * are held in memory at once.
+     *
+     * Batches are merged while later batches are still being counted against the same Trie, which is safe
+     * (without locking) because the two never touch the same part of it. A batch only reads the
+     * length k-1 windows, so it reads the child links of nodes above depth k-1 and the counts
+     * of depth k-1 nodes, none of which change during this pass. A merge only adds windows whose
+     * length k-1 prefix is already in the Trie, so it only changes the child links of depth k-1 nodes
+     * and creates or updates depth k nodes, which no batch reads.
+     * Anything that breaks this (e.g. a merge creating shorter paths, or a batch reading length k windows)
+     * must instead merge only after every batch has been counted.
+     * @param f The Trie used to store/check support of the patterns.
+     * @param k The size of the windows.
+     * @param db The sequences to split.
+     * @param pool The pool to count batches in.
+     * @return The distinct candidates that were counted.
+     */
+    private ArrayList<int[]> countLengthKCandidates(IntTrie f, int k, SequenceSource db, ForkJoinPool pool){
+
+        final int maxInFlight = pool.getParallelism() * batchesPerThread;
+        final ArrayDeque<ForkJoinTask<IntTrie>> inFlight = new ArrayDeque<>(maxInFlight);
+        final ArrayList<int[]> candidates = new ArrayList<>();
+
+        ArrayList<int[]> batch = new ArrayList<>();
+        long batchSize = 0;
+        //the batches keep their sequences while they are counted, so they are iterated (not scanned through a buffer)
+        final Iterator<int[]> iter = db.iterator();
+        try{
+            while(iter.hasNext()){
+                if(!isRunning.get()){
+                    break;
+                }
+                int[] sequence = iter.next();
+                //sequences shorter than k have no windows, no need to hold onto them
+                if(sequence.length < k){
+                    continue;
+                }
+                batch.add(sequence);
+                batchSize += sequence.length;
+                if(batchSize >= batchItems){
+                    final ArrayList<int[]> toCount = batch;
+                    inFlight.add(pool.submit(() -> countBatch(f, k, toCount)));
+                    batch = new ArrayList<>();
+                    batchSize = 0;
+                    //wait for the oldest batch before reading any further
+                    if(inFlight.size() >= maxInFlight){
+                        mergeBatch(f, inFlight.poll().join(), candidates);
+                    }
+                }
+            }
+        }finally {
+            //case: stopped early, release the file a streamed source is reading from
+            if(iter instanceof Closeable){
+                try {
+                    ((Closeable) iter).close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
         }
+        if(!batch.isEmpty()){
+            final ArrayList<int[]> toCount = batch;
+            inFlight.add(pool.submit(() -> countBatch(f, k, toCount)));
+        }
+        while(!inFlight.isEmpty()){
+            mergeBatch(f, inFlight.poll().join(), candidates);
+        }
+        return candidates;
+    }
 
-        //now check that candidates are valid (and closed) using minimum support count
-        int potentialPatterns = 0;
-        for (Integer[] candidate : candidates) {
-            if(f.supersede(candidate, minSup, patternClosure)){
-                potentialPatterns++;
+    /**
+     * Add the counts of a batch Trie to the shared Trie, this can run while other batches are
+     * being counted, see {@link #countLengthKCandidates(IntTrie, int, SequenceSource, ForkJoinPool)}.
+     */
+    private void mergeBatch(IntTrie f, IntTrie batchTrie, ArrayList<int[]> candidates){
+        //every path in the batch Trie is a length-k window, add its count to the shared Trie
+        IntTrieIterator iter = batchTrie.getPatternIterator(false);
+        while(iter.advance() && isRunning.get()){
+            int count = iter.getCount();
+            if(f.addCount(iter.getItems(), 0, iter.getLength(), count, true) == count){
+                //first time seeing this candidate in any batch
+                candidates.add(iter.copyPattern());
             }
         }
+    }
 
-        return potentialPatterns;
+    private IntTrie countBatch(IntTrie f, int k, ArrayList<int[]> batch){
+        final IntTrie local = new IntTrie();
+        for (int s = 0; s < batch.size() && isRunning.get(); s++) {
+            int[] sequence = batch.get(s);
+            final int lastStart = sequence.length - k;
+            for (int i = 0; i <= lastStart; i++) {
+                //same rule as serial: the pre-sequence and post-sequence must already be patterns
+                if(k > 1 && (f.getFrequencyOf(sequence, i, k - 1) == 0 ||
+                        f.getFrequencyOf(sequence, i + 1, k - 1) == 0)){
+                    continue;
+                }
+                local.add(sequence, i, k, k, true, false);
+            }
+            local.unlockAll();
+        }
+        return local;
     }
 
     //////////////////
@@ -117,64 +285,119 @@ public abstract class AbstractContiguousSPM extends SPMAlgorithm {
     //////////////////
 
     protected abstract IPatternClosure getPatternClosure();
-    protected abstract boolean addToOutput(ArrayList<Integer> pattern, TrieIterator<Integer> patternIter);
+
+    /**
+     * Called once the length-k candidates are counted, before they are checked against the minimum support.
+     * By default the minimum support never changes.
+     * @param f The Trie holding the counted candidates (and all the shorter patterns).
+     * @param k The length of the candidates.
+     * @param candidates The length-k candidates.
+     * @param minSup The current minimum support.
+     * @return The minimum support to check these (and all longer) candidates against, it can only be raised.
+     */
+    protected int updateMinSup(IntTrie f, int k, List<int[]> candidates, int minSup){
+        return minSup;
+    }
+    /**
+     * @param patternIter The iterator, positioned at the pattern in question.
+     * @return Whether the current pattern of the iterator is output.
+     */
+    protected abstract boolean addToOutput(IntTrieIterator patternIter);
 
     //////////////////
     //PUBLIC METHODS
     //////////////////
 
-    protected Trie<Integer> populateTrie(int[][] sequences, int minSupAbs){
-        if(sequences.length == 0){
+    protected IntTrie populateTrie(int[][] sequences, int minSupAbs){
+        return populateTrie(new ArraySequenceSource(sequences), minSupAbs);
+    }
+
+    protected IntTrie populateTrie(SequenceSource sequences, int minSupAbs){
+        if(sequences.size() == 0){
             throw new IllegalArgumentException(
                     "Cannot mine patterns from empty sequence database.");
         }
         return runImpl(sequences, minSupAbs);
     }
 
+    protected List<SequentialPattern> run(int[][] sequences, int minSupAbs){
+        return run(new ArraySequenceSource(sequences), minSupAbs);
+    }
+
     /**
      * Run CCSpan and write a list.
      * @param sequences The sequence database
      * @param minSupAbs The minimum absolute support.
      * @return The contiguous sequential patterns.
      */
-    protected List<SequentialPattern> run(int[][] sequences, int minSupAbs){
-        final Trie<Integer> patterns = populateTrie(sequences, minSupAbs);
-        final TrieIterator<Integer> iter = patterns.getPatternIterator(true);
-        final List<SequentialPattern> output = new ArrayList<>(sequences.length);
-
-        while(iter.hasNext() && isRunning.get()){
-            ArrayList<Integer> pattern = iter.next();
-            int support = iter.getCount();
-            if(!addToOutput(pattern, iter)){
-                continue;
-            }
-            output.add(new SequentialPattern(pattern, support));
-        }
+    protected List<SequentialPattern> run(SequenceSource sequences, int minSupAbs){
+        final List<SequentialPattern> output = new ArrayList<>(sequences.size());
+        run(sequences, minSupAbs, (pattern, support) -> output.add(new SequentialPattern(pattern, support)));
         return output;
     }
 
+    protected void run(int[][] sequences, int minSupAbs, File outputFile){
+        run(new ArraySequenceSource(sequences), minSupAbs, outputFile);
+    }
+
     /**
-     * Run CCSpan and write patterns to a file.
+     * Run CCSpan and write patterns to a file, the writing is done on another thread
+     * while the Trie is read, the file is complete once this returns.
      * @param sequences The sequence database
      * @param minSupAbs The absolute minimum support.
      * @param outputFile The file to write to.
      */
-    protected void run(int[][] sequences, int minSupAbs, File outputFile){
-        final Trie<Integer> patterns = populateTrie(sequences, minSupAbs);
-        final TrieIterator<Integer> iter = patterns.getPatternIterator(true);
-        final SequentialPatternWriter writer = new SequentialPatternWriter(outputFile);
-
-        while(iter.hasNext() && isRunning.get()){
-            ArrayList<Integer> pattern = iter.next();
-            int support = iter.getCount();
-            if(!addToOutput(pattern, iter)){
-                continue;
+    protected void run(SequenceSource sequences, int minSupAbs, File outputFile){
+        final AsyncPatternWriter writer = new AsyncPatternWriter(PatternWriter.open(outputFile, binaryOutput));
+        try{
+            run(sequences, minSupAbs, writer::write);
+        }finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Run the algorithm and pass each pattern to a sink as soon as it is read from the Trie,
+     * so the patterns never have to be collected. The patterns are read one 1st level subtree
+     * at a time and each subtree is released once it is read, so the Trie shrinks as the patterns
+     * are consumed. The patterns arrive in the same order as {@link #run(SequenceSource, int)} returns them.
+     * @param params The parameters (the output file is ignored).
+     * @param sink Receives each pattern and its support.
+     */
+    public void run(SPMParameters params, PatternSink sink){
+        if(!params.areParametersValid()){
+            return;
+        }
+        isRunning.set(true);
+        startTimer();
+        this.nThreads = params.getNThreads();
+        try{
+            run(params.getSequenceSource(), params.getMinSup(), sink);
+        }finally {
+            isRunning.set(false);
+        }
+    }
+
+    protected void run(SequenceSource sequences, int minSupAbs, PatternSink sink){
+        final IntTrie patterns = populateTrie(sequences, minSupAbs);
+        final long nNodes = patterns.getNumNodes();
+        long nOutput = 0;
+        for (int firstItem : patterns.get1stLevelItems()) {
+            final IntTrieIterator iter = patterns.getPatternIterator(firstItem, true);
+            while(iter.advance() && isRunning.get()){
+                if(!addToOutput(iter)){
+                    continue;
+                }
+                //only the output patterns are copied out of the iterator
+                sink.accept(iter.copyPattern(), iter.getCount());
+                nOutput++;
             }
-            writer.write(new SequentialPattern(pattern, support));
+            //every pattern starting with this item has been read, let the subtree go
+            patterns.remove1stLevelNode(firstItem);
         }
-        writer.close();
+        report("output", -1, -1, nOutput, nNodes, -1);
     }
 
 
 
-}
+}
\ No newline at end of file
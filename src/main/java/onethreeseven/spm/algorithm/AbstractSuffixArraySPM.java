@@ -0,0 +1,392 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.data.AsyncPatternWriter;
+import onethreeseven.spm.data.PatternWriter;
+import onethreeseven.spm.model.IPatternClosure;
+import onethreeseven.spm.model.SequentialPattern;
+import onethreeseven.spm.model.SuffixArray;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The basis for contiguous sequential pattern mining using a generalised suffix array
+ * and its LCP array instead of level-wise candidate counting in a Trie.
+ *
+ * The sequences are concatenated, each followed by its own unique separator, and the
+ * suffix array of that text is built once. Every contiguous pattern that occurs more than once
+ * corresponds to an LCP interval (a range of the suffix array sharing a common prefix), so all
+ * patterns and their supports are found in a single bottom-up pass over the LCP array.
+ * Support is the number of distinct sequences containing a pattern, which is counted by
+ * correcting the interval sizes for suffixes that came from the same sequence, see:
+ * "Color set size problem with applications to string matching." (Hui, 1992).
+ *
+ * A pattern is discarded by its {@link IPatternClosure} using the same rule as the Trie based
+ * algorithms, i.e. against its frequent one item extensions on the right (child intervals)
+ * and on the left (occurrences grouped by their preceding item).
+ *
+ * @author Luke Bermingham
+ */
+public abstract class AbstractSuffixArraySPM extends SPMAlgorithm {
+
+    private boolean binaryOutput = false;
+
+    /////////////////
+    //INTERNAL METHODS
+    /////////////////
+
+    @Override
+    protected Collection<SequentialPattern> runImpl(SPMParameters params) {
+        if(params.getOutFile() != null){
+            this.binaryOutput = params.isBinaryOutput();
+            run(params.getSequences(), params.getMinSup(), params.getOutFile());
+            return null;
+        }else{
+            return run(params.getSequences(), params.getMinSup());
+        }
+    }
+
+    /**
+     * Mine the contiguous patterns of the database and pass them to the processor.
+     * @param db The sequences to mine.
+     * @param minSup The absolute minimum support.
+     * @param processor Where the output patterns are sent.
+     */
+    private void mine(int[][] db, int minSup, PatternProcessor processor){
+        if(db.length == 0){
+            throw new IllegalArgumentException(
+                    "Cannot mine patterns from empty sequence database.");
+        }
+        new Miner(db, minSup, getPatternClosure(), processor).mine();
+    }
+
+    private interface PatternProcessor {
+        void process(SequentialPattern pattern);
+    }
+
+    /**
+     * The state of a single mining run.
+     */
+    private class Miner {
+
+        private final int minSup;
+        private final IPatternClosure closure;
+        private final boolean neverDiscard;
+        private final PatternProcessor processor;
+
+        //the text is the sequences with items replaced by their rank (offset by nSeqs) and
+        //each sequence followed by a unique separator (the index of the sequence)
+        private final int[] text;
+        private final int[] rankToItem;
+        private final int[] seqStarts;
+        private final int nSeqs;
+
+        private int[] sa;
+        private int[] lcp;
+
+        //the stack of open lcp intervals, stored in parallel arrays
+        private int[] stackLcp = new int[64];
+        private int[] stackLb = new int[64];
+        private int[] stackCorrection = new int[64];
+        private int[] stackMaxChildSup = new int[64];
+        private int stackSize = 0;
+
+        //buffer used to group occurrences by their preceding item
+        private long[] leftBuffer = new long[64];
+
+        Miner(int[][] db, int minSup, IPatternClosure closure, PatternProcessor processor){
+            this.minSup = minSup;
+            this.closure = closure;
+            this.neverDiscard = closure == IPatternClosure.NONE;
+            this.processor = processor;
+            this.nSeqs = db.length;
+
+            //rank the distinct items
+            long nItems = 0;
+            for (int[] sequence : db) {
+                nItems += sequence.length;
+            }
+            if(nItems + nSeqs > Integer.MAX_VALUE){
+                throw new IllegalArgumentException("Sequence database is too large for a suffix array.");
+            }
+            int[] items = new int[(int) nItems];
+            int p = 0;
+            for (int[] sequence : db) {
+                System.arraycopy(sequence, 0, items, p, sequence.length);
+                p += sequence.length;
+            }
+            Arrays.sort(items);
+            int nDistinct = 0;
+            for (int i = 0; i < items.length; i++) {
+                if(i == 0 || items[i] != items[i-1]){
+                    items[nDistinct++] = items[i];
+                }
+            }
+            this.rankToItem = Arrays.copyOf(items, nDistinct);
+
+            //build the text
+            this.text = new int[(int) nItems + nSeqs];
+            this.seqStarts = new int[nSeqs + 1];
+            p = 0;
+            for (int s = 0; s < nSeqs; s++) {
+                seqStarts[s] = p;
+                for (int item : db[s]) {
+                    text[p++] = Arrays.binarySearch(rankToItem, item) + nSeqs;
+                }
+                text[p++] = s;
+            }
+            seqStarts[nSeqs] = p;
+        }
+
+        void mine(){
+            SuffixArray suffixArray = new SuffixArray(text, nSeqs + rankToItem.length);
+            if(!isRunning.get()){
+                return;
+            }
+            this.sa = suffixArray.getSuffixArray();
+            this.lcp = suffixArray.getLcp();
+            final int n = text.length;
+
+            //the last suffix array index each sequence was seen at, used to correct support
+            final int[] lastSeen = new int[nSeqs];
+            Arrays.fill(lastSeen, -1);
+            lastSeen[seqOf(sa[0])] = 0;
+
+            //the root interval
+            push(0, 0, 0, 0);
+
+            for (int i = 1; i <= n && isRunning.get(); i++) {
+                final int prevLcp = lcp[i-1];
+                final int curLcp = (i < n) ? lcp[i] : 0;
+
+                //suffix i-1 is a leaf, its parent is the deeper of its two neighbouring lcp intervals
+                int pendingCorrection = 0;
+                int pendingMaxChildSup = 0;
+                final int leaf = i - 1;
+                final int leafLength = lengthToSeparator(sa[leaf]);
+                final int leafParentLcp = Math.max(prevLcp, curLcp);
+                if(leafLength > leafParentLcp){
+                    processLeaf(leaf, leafLength, leafParentLcp);
+                    if(prevLcp >= curLcp){
+                        stackMaxChildSup[stackSize-1] = Math.max(stackMaxChildSup[stackSize-1], 1);
+                    }else{
+                        pendingMaxChildSup = 1;
+                    }
+                }
+
+                //close every interval that ends at i-1
+                int lb = i - 1;
+                while(curLcp < stackLcp[stackSize-1]){
+                    stackSize--;
+                    final int intervalLcp = stackLcp[stackSize];
+                    final int intervalLb = stackLb[stackSize];
+                    final int correction = stackCorrection[stackSize];
+                    final int support = (i - intervalLb) + correction;
+                    final int parentLcp = Math.max(curLcp, stackLcp[stackSize-1]);
+                    processInterval(intervalLb, i - 1, intervalLcp, parentLcp, support, stackMaxChildSup[stackSize]);
+                    lb = intervalLb;
+                    //the closed interval is a child of the top of the stack, or of the interval about to be opened
+                    if(curLcp <= stackLcp[stackSize-1]){
+                        stackCorrection[stackSize-1] += correction;
+                        stackMaxChildSup[stackSize-1] = Math.max(stackMaxChildSup[stackSize-1], support);
+                    }else{
+                        pendingCorrection += correction;
+                        pendingMaxChildSup = Math.max(pendingMaxChildSup, support);
+                    }
+                }
+                if(curLcp > stackLcp[stackSize-1]){
+                    push(curLcp, lb, pendingCorrection, pendingMaxChildSup);
+                }
+
+                //suffixes from the same sequence that are adjacent (in the same sequence) are counted
+                //once too many in the deepest interval containing both of them
+                if(i < n && text[sa[i]] >= nSeqs){
+                    final int seq = seqOf(sa[i]);
+                    final int prev = lastSeen[seq];
+                    if(prev >= 0){
+                        stackCorrection[deepestIntervalContaining(prev)]--;
+                    }
+                    lastSeen[seq] = i;
+                }
+            }
+        }
+
+        /**
+         * Output the patterns that end inside a leaf (i.e. occur in exactly one place).
+         */
+        private void processLeaf(int leaf, int leafLength, int parentLcp){
+            if(minSup > 1){
+                return;
+            }
+            final int start = sa[leaf];
+            final boolean hasLeft = start > seqStarts[seqOf(start)];
+            final boolean leftDiscard = hasLeft && closure.discard(1, 1);
+            if(leftDiscard){
+                return;
+            }
+            for (int length = parentLcp + 1; length <= leafLength; length++) {
+                //all but the longest can be extended to the right with the same support
+                if(length < leafLength && closure.discard(1, 1)){
+                    continue;
+                }
+                output(start, length, 1);
+            }
+        }
+
+        /**
+         * Output the patterns whose occurrences are exactly the lcp interval [lb, rb].
+         * These are the prefixes of the interval with lengths in (parentLcp, intervalLcp].
+         */
+        private void processInterval(int lb, int rb, int intervalLcp, int parentLcp, int support, int maxChildSup){
+            if(support < minSup){
+                return;
+            }
+            final int start = sa[lb];
+            //the left extensions are the same for every length so only compute them if needed
+            int maxLeftSup = -1;
+            for (int length = parentLcp + 1; length <= intervalLcp; length++) {
+                if(!neverDiscard){
+                    //right extension: shorter patterns extend within the interval, the longest extends into a child
+                    if(length < intervalLcp){
+                        if(closure.discard(support, support)){
+                            continue;
+                        }
+                    }
+                    else if(maxChildSup >= minSup && closure.discard(support, maxChildSup)){
+                        continue;
+                    }
+                    //left extension
+                    if(maxLeftSup == -1){
+                        maxLeftSup = maxLeftExtensionSupport(lb, rb);
+                    }
+                    if(maxLeftSup >= minSup && closure.discard(support, maxLeftSup)){
+                        return;
+                    }
+                }
+                output(start, length, support);
+            }
+        }
+
+        /**
+         * @return The largest support of any pattern made by adding one item to the left
+         * of the occurrences in the interval [lb, rb].
+         */
+        private int maxLeftExtensionSupport(int lb, int rb){
+            int m = 0;
+            for (int j = lb; j <= rb; j++) {
+                final int start = sa[j];
+                final int seq = seqOf(start);
+                if(start > seqStarts[seq]){
+                    if(m == leftBuffer.length){
+                        leftBuffer = Arrays.copyOf(leftBuffer, m * 2);
+                    }
+                    leftBuffer[m++] = ((long) text[start - 1] << 32) | seq;
+                }
+            }
+            Arrays.sort(leftBuffer, 0, m);
+            //count distinct sequences per preceding item
+            int maxSup = 0;
+            int sup = 0;
+            for (int j = 0; j < m; j++) {
+                if(j == 0 || (leftBuffer[j] >>> 32) != (leftBuffer[j-1] >>> 32)){
+                    sup = 1;
+                }else if(leftBuffer[j] != leftBuffer[j-1]){
+                    sup++;
+                }
+                maxSup = Math.max(maxSup, sup);
+            }
+            return maxSup;
+        }
+
+        private void output(int start, int length, int support){
+            int[] pattern = new int[length];
+            for (int i = 0; i < length; i++) {
+                pattern[i] = rankToItem[text[start + i] - nSeqs];
+            }
+            processor.process(new SequentialPattern(pattern, support));
+        }
+
+        /**
+         * @return The index (in the stack) of the deepest open interval whose left bound is at or before idx.
+         */
+        private int deepestIntervalContaining(int idx){
+            int lo = 0;
+            int hi = stackSize - 1;
+            while(lo < hi){
+                int mid = (lo + hi + 1) >>> 1;
+                if(stackLb[mid] <= idx){
+                    lo = mid;
+                }else{
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+
+        private void push(int intervalLcp, int lb, int correction, int maxChildSup){
+            if(stackSize == stackLcp.length){
+                int newSize = stackSize * 2;
+                stackLcp = Arrays.copyOf(stackLcp, newSize);
+                stackLb = Arrays.copyOf(stackLb, newSize);
+                stackCorrection = Arrays.copyOf(stackCorrection, newSize);
+                stackMaxChildSup = Arrays.copyOf(stackMaxChildSup, newSize);
+            }
+            stackLcp[stackSize] = intervalLcp;
+            stackLb[stackSize] = lb;
+            stackCorrection[stackSize] = correction;
+            stackMaxChildSup[stackSize] = maxChildSup;
+            stackSize++;
+        }
+
+        private int seqOf(int textIdx){
+            //every sequence has at least its separator so the starts are strictly increasing
+            int idx = Arrays.binarySearch(seqStarts, textIdx);
+            return (idx >= 0) ? idx : -idx - 2;
+        }
+
+        private int lengthToSeparator(int textIdx){
+            return seqStarts[seqOf(textIdx) + 1] - 1 - textIdx;
+        }
+
+    }
+
+    //////////////////
+    //ABSTRACT METHODS
+    //////////////////
+
+    protected abstract IPatternClosure getPatternClosure();
+
+    //////////////////
+    //PUBLIC METHODS
+    //////////////////
+
+    /**
+     * Run the suffix array miner and return a list.
+     * @param sequences The sequence database
+     * @param minSupAbs The minimum absolute support.
+     * @return The contiguous sequential patterns.
+     */
+    protected List<SequentialPattern> run(int[][] sequences, int minSupAbs){
+        final List<SequentialPattern> output = new ArrayList<>(sequences.length);
+        mine(sequences, minSupAbs, output::add);
+        return output;
+    }
+
+    /**
+     * Run the suffix array miner and write patterns to a file.
+     * @param sequences The sequence database
+     * @param minSupAbs The absolute minimum support.
+     * @param outputFile The file to write to.
+     */
+    protected void run(int[][] sequences, int minSupAbs, File outputFile){
+        final AsyncPatternWriter writer = new AsyncPatternWriter(PatternWriter.open(outputFile, binaryOutput));
+        try{
+            mine(sequences, minSupAbs, writer::write);
+        }finally {
+            writer.close();
+        }
+    }
+
+}
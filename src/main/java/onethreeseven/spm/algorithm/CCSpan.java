@@ -1,15 +1,13 @@
 package onethreeseven.spm.algorithm;
 
 import onethreeseven.spm.model.IPatternClosure;
-import onethreeseven.spm.model.Trie;
-import onethreeseven.spm.model.TrieIterator;
-
-import java.util.ArrayList;
+import onethreeseven.spm.model.IntTrie;
+import onethreeseven.spm.model.IntTrieIterator;
 
 /**
  * CCSpan: Mining closed contiguous sequential patterns.
  * By Jingsong Zhang, Yinglin Wang and Dingyu Yang.
- * This is our implementation of their algorithm, we use a {@link Trie}
+ * This is our implementation of their algorithm, we use an {@link IntTrie}
  * to speed up the pattern searching.
  * @author Luke Bermingham
  */
@@ -21,7 +19,7 @@ public class CCSpan extends AbstractContiguousSPM {
     }
 
     @Override
-    protected boolean addToOutput(ArrayList<Integer> pattern, TrieIterator<Integer> patternIter) {
+    protected boolean addToOutput(IntTrieIterator patternIter) {
         //if the pattern is not marked we don't want to write it
         if(!patternIter.isMarked()){
             return false;
@@ -0,0 +1,30 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.model.IPatternClosure;
+
+/**
+ * Mines closed contiguous sequential patterns using a suffix array, see {@link AbstractSuffixArraySPM}.
+ * Produces the same patterns as {@link CCSpan}.
+ * @author Luke Bermingham
+ */
+public class CCSpanSA extends AbstractSuffixArraySPM {
+    @Override
+    protected IPatternClosure getPatternClosure() {
+        return IPatternClosure.CLOSED;
+    }
+
+    @Override
+    public String toString() {
+        return "CCSpanSA(Closed-Contiguous)";
+    }
+
+    @Override
+    public String getSimpleName() {
+        return "ccspan-sa";
+    }
+
+    @Override
+    public String getPatternType() {
+        return "closed contiguous";
+    }
+}
@@ -1,13 +1,15 @@
 package onethreeseven.spm.algorithm;
 
-import onethreeseven.collections.Range;
-import onethreeseven.spm.data.SPMFParser;
-import onethreeseven.spm.data.SequentialPatternWriter;
+import onethreeseven.spm.data.AsyncPatternWriter;
+import onethreeseven.spm.data.PatternWriter;
+import onethreeseven.spm.data.SequenceSource;
 import onethreeseven.spm.model.CoveredSequentialPattern;
+import onethreeseven.spm.model.IndexedMaxHeap;
+import onethreeseven.spm.model.LongIntHashMap;
+import onethreeseven.spm.model.LongIntListMap;
 import onethreeseven.spm.model.SequentialPattern;
 
 import java.io.*;
-import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -17,30 +19,33 @@ import java.util.*;
  */
 public class DCSpan extends SPMAlgorithm {
 
-    @Override
-    protected Collection<SequentialPattern> runImpl(SPMParameters params) {
-        if(params.getOutFile() != null){
-            File outFile = params.getOutFile();
-
-            //String filename = outFile.getName();
-            //String path = Paths.get(outFile.toURI()).getParent().toAbsolutePath().toString();
-            //File acspanFile = new File(Paths.get(path, "acspan_" + filename).toAbsolutePath().toString());
-
-            SPMParameters acSpanParams = new SPMParameters(params.getSequences(), params.getMinSup());
-            //acSpanParams.setOutFile(acspanFile);
+    //while selecting, progress is reported at most this often
+    private static final long reportIntervalNanos = 1000000000L;
 
-            Collection<SequentialPattern> patterns = new ACSpan().run(acSpanParams);
+    private boolean incrementalCover = false;
+    private boolean binaryOutput = false;
 
-            //load the ac-span patterns into memory...if possible
-//            SPMFParser parser = new SPMFParser();
-//            List<SequentialPattern> patterns = parser.parsePatterns(acspanFile);
+    @Override
+    protected Collection<SequentialPattern> runImpl(SPMParameters params) {
+        startTimer();
+        this.incrementalCover = params.isIncrementalCover();
+        this.binaryOutput = params.isBinaryOutput();
+        //index the all-contiguous patterns as ACSpan produces them, instead of collecting them first
+        final PatternIndex index = new PatternIndex(createCoverMap(params.getSequenceSource()));
+        SPMParameters acSpanParams = new SPMParameters(params.getSequenceSource(), params.getMinSup());
+        acSpanParams.setNThreads(params.getNThreads());
+        ACSpan acSpan = new ACSpan();
+        acSpan.setListener(getListener());
+        acSpan.run(acSpanParams, index::add);
 
-            run(params.getSequences(), (List<SequentialPattern>) patterns, params.getMaxRedund(), outFile);
+        if(params.getOutFile() != null){
+            run(index, params.getMaxRedund(), params.getOutFile());
             return null;
         }
         else{
-            Collection<SequentialPattern> patterns = new ACSpan().run(params);
-            return run(params.getSequences(), (List<SequentialPattern>) patterns, params.getMaxRedund());
+            ArrayList<SequentialPattern> out = new ArrayList<>();
+            run(index, params.getMaxRedund(), out::add);
+            return out;
         }
     }
 
@@ -58,191 +63,240 @@ public class DCSpan extends SPMAlgorithm {
         void process(CoveredSequentialPattern pattern);
     }
 
-    protected List<SequentialPattern> run(int[][] seqDb, List<SequentialPattern> patterns, double maxRedundancy){
+    protected List<SequentialPattern> run(SequenceSource seqDb, List<SequentialPattern> patterns, double maxRedundancy){
         ArrayList<SequentialPattern> out = new ArrayList<>();
-        run(seqDb, patterns, maxRedundancy, out::add);
+        run(index(seqDb, patterns), maxRedundancy, out::add);
         return out;
     }
 
-    protected void run(int[][] seqDb, List<SequentialPattern> patterns, double maxRedundancy, File outFile){
-
-        SequentialPatternWriter writer = new SequentialPatternWriter(outFile);
-        FileWriter fw = null;
-        BufferedWriter bw = null;
-        if(outFile.setWritable(true)){
-            try {
-                fw  = new FileWriter(outFile, true);
-                bw = new BufferedWriter(fw);
-                PatternProcessor processor = writer::write;
-                run(seqDb, patterns, maxRedundancy, processor);
-                bw.flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }finally {
-                try{
-                    if(fw != null){
-                        fw.close();
-                    }
-                    if(bw != null){
-                        bw.close();
-                    }
+    protected void run(SequenceSource seqDb, List<SequentialPattern> patterns, double maxRedundancy, File outFile){
+        run(index(seqDb, patterns), maxRedundancy, outFile);
+    }
 
-                    System.gc();
-                }catch (IOException ex){
-                    ex.printStackTrace();
-                }
-            }
+    private PatternIndex index(SequenceSource seqDb, List<SequentialPattern> patterns){
+        final PatternIndex index = new PatternIndex(createCoverMap(seqDb));
+        for (SequentialPattern pattern : patterns) {
+            index.add(pattern.getSequence(), pattern.getSupport());
         }
+        //no need for the sequential patterns now, the index has the candidate patterns
+        patterns.clear();
+        return index;
     }
 
-    private void run(int[][] seqDb, List<SequentialPattern> patterns, double maxRedundancy, PatternProcessor processor){
-        //stores cover associated with each pair
-        final HashMap<Range, Integer> coverMap = createCoverMap(seqDb);
-        seqDb = null;
-        //make a map where each pair is mapped to list of sequence ids that use it
-        final HashMap<Range, Set<Integer>> pairToSequenceIds = new HashMap<>();
-        final HashMap<Integer, CoveredSequentialPattern> coveredPatterns = new HashMap<>();
-        //populate the two maps
-        populateMaps(coverMap, pairToSequenceIds, coveredPatterns, patterns);
-        //no need for the sequential patterns now, we have a map of covered pattern to lookup
-        patterns.clear();
+    private void run(PatternIndex index, double maxRedundancy, File outFile){
 
-        //find and output the most covered pattern, remove it, then do this repeatedly
-        while(!coveredPatterns.isEmpty() && isRunning.get()){
+        AsyncPatternWriter writer = new AsyncPatternWriter(PatternWriter.open(outFile, binaryOutput));
+        try{
+            run(index, maxRedundancy, writer::write);
+        }finally {
+            //the patterns are written on another thread, they are only all in the file once it is closed
+            writer.close();
+        }
+    }
 
-            Map.Entry<Integer, CoveredSequentialPattern> bestEntry = null;
-            //find most covered pattern
-            for (Map.Entry<Integer, CoveredSequentialPattern> entry : coveredPatterns.entrySet()) {
-                if (bestEntry == null || entry.getValue().getCover() > bestEntry.getValue().getCover()) {
-                    bestEntry = entry;
-                }
+    private void run(PatternIndex index, double maxRedundancy, PatternProcessor processor){
+        final int nPatterns = index.size();
+
+        //keep the candidate patterns ordered by cover (ties go to the earliest pattern)
+        //in incremental mode the cover of a pattern in the heap is only the cover of its unconsumed pairs
+        final IndexedMaxHeap coverHeap = new IndexedMaxHeap(nPatterns);
+        for (int i = 0; i < nPatterns; i++) {
+            if(index.getCover(i) > 1){
+                coverHeap.add(i, index.getCover(i));
             }
+        }
 
-            if(bestEntry == null){
-                continue;
+        final BitSet dirtyPatternIds = new BitSet(nPatterns);
+        report("index", -1, coverHeap.size(), nPatterns, -1, -1);
+        long iterations = 0;
+        long nOutput = 0;
+        long lastReport = System.nanoTime();
+
+        //find and output the most covered pattern, remove it, then do this repeatedly
+        while(!coverHeap.isEmpty() && isRunning.get()){
+            iterations++;
+            if((iterations & 1023) == 0 && System.nanoTime() - lastReport > reportIntervalNanos){
+                report("select", -1, coverHeap.size(), nOutput, -1, iterations);
+                lastReport = System.nanoTime();
             }
 
-            //remove it from the candidate patterns
-            coveredPatterns.remove(bestEntry.getKey());
+            //remove the most covered pattern from the candidate patterns
+            final int bestCover = coverHeap.getKey(coverHeap.peek());
+            final int bestId = coverHeap.poll();
 
-            if(bestEntry.getValue().getCover() > 1){
-                processor.process(bestEntry.getValue());
+            if(bestCover > 1){
+                final int[] sequence = index.getSequence(bestId);
+                processor.process(new CoveredSequentialPattern(sequence, index.getSupport(bestId), bestCover));
+                nOutput++;
                 //remove the relevant pairs from the pair map
-                Set<Integer> dirtyPatternIds = updatePairToSequenceIds(bestEntry.getValue().getSequence(), pairToSequenceIds);
-                //update the coveredPatterns
-                updatePatterns(dirtyPatternIds, coveredPatterns, pairToSequenceIds, maxRedundancy);
+                updatePairToPatternIds(sequence, index.pairToPatternIds, dirtyPatternIds,
+                        incrementalCover ? index.pairCoverMap : null, coverHeap);
+                //update the candidate patterns
+                updatePatterns(dirtyPatternIds, index, coverHeap, maxRedundancy);
             }
 
         }
+        report("select", -1, coverHeap.size(), nOutput, -1, iterations);
     }
 
-    private void updatePatterns(Set<Integer> dirtyPatternIds,
-                                HashMap<Integer, CoveredSequentialPattern> coveredPatterns,
-                                HashMap<Range, Set<Integer>> pairToSequenceIds,
+    /**
+     * Encode an adjacent pair of items as a single key.
+     */
+    private static long pairKey(int itemA, int itemB){
+        return ((long) itemA << 32) | (itemB & 0xFFFFFFFFL);
+    }
+
+    private void updatePatterns(BitSet dirtyPatternIds,
+                                PatternIndex index,
+                                IndexedMaxHeap coverHeap,
                                 double maxRedundancy){
 
-        for (Integer patternId : dirtyPatternIds) {
-            CoveredSequentialPattern pattern = coveredPatterns.get(patternId);
-            if(pattern == null){
+        for (int patternId = dirtyPatternIds.nextSetBit(0); patternId >= 0;
+             patternId = dirtyPatternIds.nextSetBit(patternId + 1)) {
+            dirtyPatternIds.clear(patternId);
+            //case: not a candidate (anymore)
+            if(!coverHeap.contains(patternId)){
                 continue;
             }
-            boolean isValid = isValid(pattern.getSequence(), maxRedundancy, pairToSequenceIds);
-            if(!isValid || pattern.getCover() <= 1){
-                coveredPatterns.remove(patternId);
+            boolean isValid = isValid(index, patternId, maxRedundancy);
+            if(!isValid || coverHeap.getKey(patternId) <= 1){
+                coverHeap.remove(patternId);
             }
         }
     }
 
     /**
      * Break this sequence into pairs and remove the pairs from the map
-     * and return a set of all affected patterns ids.
+     * and mark all affected patterns ids as dirty.
      * @param sequence The sequence to be broken up into pairs.
-     * @param pairToSequenceIds The pairs map to remove the pairs from.
-     * @return A set of dirty sequence ids that need updating.
+     * @param pairToPatternIds The pairs map to remove the pairs from.
+     * @param dirtyPatternIds Where to mark the dirty pattern ids that need updating.
+     * @param pairCoverMap If non-null, the cover of each removed pair is subtracted from
+     *                     the cover of every pattern still in the heap that uses it.
+     * @param coverHeap The candidate patterns.
      */
-    private Set<Integer> updatePairToSequenceIds(int[] sequence, HashMap<Range, Set<Integer>> pairToSequenceIds){
-
-        Set<Integer> dirtyPatternIds = new HashSet<>();
+    private void updatePairToPatternIds(int[] sequence, LongIntListMap pairToPatternIds, BitSet dirtyPatternIds,
+                                        LongIntHashMap pairCoverMap, IndexedMaxHeap coverHeap){
         //break sequence down into pairs
         int lastIdx = sequence.length - 1;
         for (int j = 0; j < lastIdx; j++) {
-            int itemA = sequence[j];
-            int itemB = sequence[j+1];
-            //update cover of each pair
-            Range r = new Range(itemA, itemB);
-            Set<Integer> associatedSeqIds = pairToSequenceIds.remove(r);
-            if(associatedSeqIds != null){
-                dirtyPatternIds.addAll(associatedSeqIds);
-                //coverMap.remove(r);
-                pairToSequenceIds.remove(r);
+            long pair = pairKey(sequence[j], sequence[j+1]);
+            int[] associatedPatternIds = pairToPatternIds.remove(pair);
+            if(associatedPatternIds != null){
+                final int pairCover = (pairCoverMap == null) ? 0 : pairCoverMap.get(pair, 0);
+                for (int patternId : associatedPatternIds) {
+                    dirtyPatternIds.set(patternId);
+                    if(pairCover != 0 && coverHeap.contains(patternId)){
+                        coverHeap.update(patternId, coverHeap.getKey(patternId) - pairCover);
+                    }
+                }
             }
         }
-        return dirtyPatternIds;
     }
 
-    private HashMap<Range, Integer> createCoverMap(int[][] seqDb){
-        HashMap<Range, Integer> coverMap = new HashMap<>();
-        for (int[] sequence : seqDb) {
-            int lastIdx = sequence.length - 1;
+    private LongIntHashMap createCoverMap(SequenceSource seqDb){
+        final LongIntHashMap coverMap = new LongIntHashMap();
+        seqDb.scan((sequence, length) -> {
+            int lastIdx = length - 1;
             for (int j = 0; j < lastIdx; j++) {
-                int itemA = sequence[j];
-                int itemB = sequence[j+1];
                 //update cover of each pair
-                Range r = new Range(itemA, itemB);
-                Integer cover = coverMap.getOrDefault(r, 0);
-                cover++;
-                coverMap.put(r, cover);
+                coverMap.addTo(pairKey(sequence[j], sequence[j+1]), 1);
             }
-        }
+            return true;
+        });
         return coverMap;
     }
 
-    private void populateMaps(HashMap<Range, Integer> pairCoverMap,
-                              HashMap<Range, Set<Integer>> pairToSequenceIds,
-                              HashMap<Integer, CoveredSequentialPattern> coveredPatterns,
-                              List<SequentialPattern> patterns){
+    private boolean isValid(PatternIndex index, int patternId, double maxRedundancy){
+        int redundantPairs = 0;
 
-        for (int i = 0; i < patterns.size(); i++) {
-            SequentialPattern pattern = patterns.get(i);
-            int[] sequence = pattern.getSequence();
-            int lastIdx = sequence.length - 1;
-            int cover = 0;
+        final int[] items = index.items;
+        final int start = index.offsets[patternId];
+        final int end = index.offsets[patternId + 1];
+        for (int i = start; i < end - 1; i++) {
+            if(!index.pairToPatternIds.containsKey(pairKey(items[i], items[i+1]))){
+                redundantPairs++;
+            }
+        }
 
-            HashSet<Range> pairSet = new HashSet<>();
+        double totalPairs = end - start - 1;
+        double redundancy = redundantPairs/totalPairs;
+        return redundancy <= maxRedundancy;
+
+    }
+
+    /**
+     * The patterns DCSpan selects from, added one at a time. Each pattern gets the next id
+     * and is indexed by its pairs as it is added. The items of the candidate patterns are kept
+     * one after the other in a single array (rather than one array and object per pattern),
+     * patterns that can never be selected (cover of 1 or less) keep no items at all.
+     */
+    private static class PatternIndex{
+
+        //stores cover associated with each pair
+        private final LongIntHashMap pairCoverMap;
+        //each pair is mapped to list of pattern ids that use it
+        private final LongIntListMap pairToPatternIds;
+
+        //pattern i is items [offsets[i], offsets[i+1])
+        private int[] items = new int[1024];
+        private int[] offsets = new int[1025];
+        private int[] supports = new int[1024];
+        private int[] covers = new int[1024];
+        private int nPatterns = 0;
+
+        PatternIndex(LongIntHashMap pairCoverMap){
+            this.pairCoverMap = pairCoverMap;
+            this.pairToPatternIds = new LongIntListMap(pairCoverMap.size());
+        }
 
+        void add(int[] sequence, int support){
+            final int id = nPatterns++;
+            if(id == supports.length){
+                supports = Arrays.copyOf(supports, id * 2);
+                covers = Arrays.copyOf(covers, id * 2);
+                offsets = Arrays.copyOf(offsets, id * 2 + 1);
+            }
+
+            int lastIdx = sequence.length - 1;
+            int cover = 0;
             for (int j = 0; j < lastIdx; j++) {
-                int itemA = sequence[j];
-                int itemB = sequence[j+1];
-                Range r = new Range(itemA, itemB);
-                //update pair to sequence ids
-                Set<Integer> associatedSeqIds = pairToSequenceIds.getOrDefault(r, new HashSet<>());
-                associatedSeqIds.add(i);
-                pairToSequenceIds.put(r, associatedSeqIds);
-                if(!pairSet.contains(r)){
-                    cover += pairCoverMap.getOrDefault(r, 0);
-                    pairSet.add(r);
+                long pair = pairKey(sequence[j], sequence[j+1]);
+                //update pair to pattern ids, this pattern is only added once per pair
+                //so only count the cover of each distinct pair once
+                if(pairToPatternIds.add(pair, id)){
+                    cover += pairCoverMap.get(pair, 0);
                 }
             }
+
+            int start = offsets[id];
             if(cover > 1){
-                coveredPatterns.put(i, new CoveredSequentialPattern(sequence, pattern.getSupport(), cover));
+                if(start + sequence.length > items.length){
+                    items = Arrays.copyOf(items, Math.max(items.length * 2, start + sequence.length));
+                }
+                System.arraycopy(sequence, 0, items, start, sequence.length);
+                start += sequence.length;
             }
+            offsets[id + 1] = start;
+            supports[id] = support;
+            covers[id] = cover;
         }
-    }
 
-    private boolean isValid(int[] sequence, double maxRedundancy,
-                                             HashMap<Range, Set<Integer>> pairToSequenceIds){
-        int redundantPairs = 0;
+        int size(){
+            return nPatterns;
+        }
 
-        for (int i = 0; i < sequence.length - 1; i++) {
-            Range pair = new Range(sequence[i], sequence[i+1]);
-            if(pairToSequenceIds.get(pair) == null){
-                redundantPairs++;
-            }
+        int getCover(int id){
+            return covers[id];
         }
 
-        double totalPairs = sequence.length - 1;
-        double redundancy = redundantPairs/totalPairs;
-        return redundancy <= maxRedundancy;
+        int getSupport(int id){
+            return supports[id];
+        }
+
+        int[] getSequence(int id){
+            return Arrays.copyOfRange(items, offsets[id], offsets[id + 1]);
+        }
 
     }
 
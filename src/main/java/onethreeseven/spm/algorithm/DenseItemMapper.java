@@ -0,0 +1,260 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.data.ArraySequenceSource;
+import onethreeseven.spm.data.PackedSequenceDb;
+import onethreeseven.spm.data.SequenceSource;
+import onethreeseven.spm.model.CoveredSequentialPattern;
+import onethreeseven.spm.model.LongIntHashMap;
+import onethreeseven.spm.model.SequentialPattern;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Maps the item ids of a sequence database to dense ranks (0, 1, 2...) ordered by support,
+ * so the most frequent item is 0, and maps mined patterns back to the original ids.
+ * Item ids are often sparse (e.g. road segment ids up to 10^7), which wastes space in anything
+ * indexed by item; after mapping the ids only go up to the number of frequent items.
+ *
+ * Items below the minimum support can never be in a pattern so they are not given a rank.
+ * They cannot simply be removed though, because that would join the items either side of them into
+ * a window that never occurred. Instead each is replaced by a negative gap item, and a gap item is shared
+ * by fewer than minSup sequences so it (and any window containing it) is never frequent either.
+ * Gap items are numbered from {@link #FIRST_GAP} downwards.
+ * @author Luke Bermingham
+ */
+public class DenseItemMapper {
+
+    public static final int FIRST_GAP = -1;
+
+    private final int minSup;
+    //original item -> dense rank, for the frequent items only
+    private final LongIntHashMap ranks;
+    private final int[] rankToItem;
+    private final int nDistinctItems;
+
+    /**
+     * Count the support of each item, with one scan of the sequences.
+     * @param db The sequences to map.
+     * @param minSup The minimum absolute support the sequences will be mined with.
+     */
+    public DenseItemMapper(SequenceSource db, int minSup){
+        this.minSup = minSup;
+
+        //the support of an item is the number of sequences it is in
+        LongIntHashMap supports = new LongIntHashMap();
+        LongIntHashMap lastSeen = new LongIntHashMap();
+        int[] distinct = new int[16];
+        int nDistinct = 0;
+        int seqIdx = 0;
+        for (int[] sequence : db) {
+            for (int item : sequence) {
+                if(lastSeen.get(item, -1) == seqIdx){
+                    continue;
+                }
+                lastSeen.put(item, seqIdx);
+                if(supports.addTo(item, 1) == 1){
+                    if(nDistinct == distinct.length){
+                        distinct = Arrays.copyOf(distinct, nDistinct * 2);
+                    }
+                    distinct[nDistinct++] = item;
+                }
+            }
+            seqIdx++;
+        }
+        this.nDistinctItems = nDistinct;
+
+        //order the frequent items by support (highest first), ties by item
+        long[] frequent = new long[nDistinct];
+        int nFrequent = 0;
+        for (int i = 0; i < nDistinct; i++) {
+            int support = supports.get(distinct[i], 0);
+            if(support >= minSup){
+                //sort on (-support, item) packed into one long, the item is offset so it sorts unsigned
+                frequent[nFrequent++] = ((long) -support << 32) | ((distinct[i] - (long) Integer.MIN_VALUE) & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(frequent, 0, nFrequent);
+
+        this.rankToItem = new int[nFrequent];
+        this.ranks = new LongIntHashMap(nFrequent);
+        for (int rank = 0; rank < nFrequent; rank++) {
+            int item = (int) (frequent[rank] + Integer.MIN_VALUE);
+            rankToItem[rank] = item;
+            ranks.put(item, rank);
+        }
+    }
+
+    /**
+     * @return The number of distinct items in the original sequences.
+     */
+    public int getNumDistinctItems(){
+        return nDistinctItems;
+    }
+
+    /**
+     * @return The number of items that were given a dense rank, i.e. the frequent items.
+     */
+    public int getNumDenseItems(){
+        return rankToItem.length;
+    }
+
+    /**
+     * @param item An original item.
+     * @return Its dense rank, or -1 if it is not frequent.
+     */
+    public int toDense(int item){
+        return ranks.get(item, -1);
+    }
+
+    /**
+     * @param rank A dense rank.
+     * @return The original item.
+     */
+    public int toOriginal(int rank){
+        if(rank < 0){
+            throw new IllegalArgumentException("Gap items have no original item, was passed: " + rank);
+        }
+        return rankToItem[rank];
+    }
+
+    public int[] toOriginal(int[] pattern){
+        int[] original = new int[pattern.length];
+        for (int i = 0; i < pattern.length; i++) {
+            original[i] = toOriginal(pattern[i]);
+        }
+        return original;
+    }
+
+    /**
+     * @param pattern A pattern mined from the mapped sequences.
+     * @return The same pattern in the original items, keeping its support (and cover).
+     */
+    public SequentialPattern toOriginal(SequentialPattern pattern){
+        int[] sequence = toOriginal(pattern.getSequence());
+        if(pattern instanceof CoveredSequentialPattern){
+            return new CoveredSequentialPattern(sequence, pattern.getSupport(), ((CoveredSequentialPattern) pattern).getCover());
+        }
+        return new SequentialPattern(sequence, pattern.getSupport());
+    }
+
+    /**
+     * Map the sequences to dense ranks. Sequences already in memory are mapped into new arrays,
+     * a {@link PackedSequenceDb} is packed again (the dense ranks usually take fewer bits)
+     * and anything else (e.g. a file being streamed) is mapped on the fly as it is scanned.
+     * @param db The sequences, in the same order as they were counted.
+     * @return The mapped sequences.
+     */
+    public SequenceSource toDense(SequenceSource db){
+        SequenceSource mapped = new MappedSource(db);
+        if(db instanceof ArraySequenceSource){
+            return new ArraySequenceSource(mapped.toArray());
+        }
+        if(db instanceof PackedSequenceDb){
+            return new PackedSequenceDb(mapped, false);
+        }
+        return mapped;
+    }
+
+    /**
+     * Map the items of one sequence.
+     * @param nGapSequences The number of sequences that have needed a gap item so far in the scan.
+     * @return True if the sequence needed a gap item.
+     */
+    private boolean toDense(int[] sequence, int length, int[] dest, int nGapSequences){
+        boolean hasGap = false;
+        for (int i = 0; i < length; i++) {
+            int rank = ranks.get(sequence[i], -1);
+            if(rank == -1){
+                //at most minSup - 1 sequences share a gap item, so it stays infrequent
+                rank = FIRST_GAP - nGapSequences / (minSup - 1);
+                hasGap = true;
+            }
+            dest[i] = rank;
+        }
+        return hasGap;
+    }
+
+    /**
+     * Maps each sequence as it is reached.
+     */
+    private class MappedSource implements SequenceSource {
+
+        private final SequenceSource db;
+
+        MappedSource(SequenceSource db){
+            this.db = db;
+        }
+
+        @Override
+        public int size() {
+            return db.size();
+        }
+
+        /**
+         * Scan the underlying sequences, mapping each into one reused buffer.
+         * Stopping early stops the underlying scan too.
+         */
+        @Override
+        public void scan(SequenceVisitor visitor) {
+            final int[] nGapSequences = new int[1];
+            final int[][] buffer = new int[][]{new int[64]};
+            db.scan((items, length) -> {
+                if(buffer[0].length < length){
+                    buffer[0] = new int[Math.max(length, buffer[0].length * 2)];
+                }
+                if(toDense(items, length, buffer[0], nGapSequences[0])){
+                    nGapSequences[0]++;
+                }
+                return visitor.visit(buffer[0], length);
+            });
+        }
+
+        @Override
+        public Iterator<int[]> iterator() {
+            return new MappedIterator(db.iterator());
+        }
+    }
+
+    /**
+     * Maps each sequence of an underlying iterator into a new array, closing it when closed.
+     */
+    private class MappedIterator implements Iterator<int[]>, Closeable {
+
+        private final Iterator<int[]> iter;
+        //the number of sequences that have needed a gap item so far in this scan
+        private int nGapSequences = 0;
+
+        MappedIterator(Iterator<int[]> iter){
+            this.iter = iter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iter.hasNext();
+        }
+
+        @Override
+        public int[] next() {
+            if(!hasNext()){
+                throw new NoSuchElementException();
+            }
+            int[] sequence = iter.next();
+            int[] dense = new int[sequence.length];
+            if(toDense(sequence, sequence.length, dense, nGapSequences)){
+                nGapSequences++;
+            }
+            return dense;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(iter instanceof Closeable){
+                ((Closeable) iter).close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.data.PatternReader;
+import onethreeseven.spm.data.PatternWriter;
+import onethreeseven.spm.model.CoveredSequentialPattern;
+import onethreeseven.spm.model.SequentialPattern;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Runs any {@link SPMAlgorithm} on a copy of the sequences whose items are mapped to dense ranks
+ * (see {@link DenseItemMapper}), then maps the patterns back to the original items.
+ * The patterns are the same as running the algorithm directly, only their order may differ.
+ * When writing to file the algorithm writes the dense patterns to a temporary (binary) file first,
+ * which is then mapped into the out file.
+ * @author Luke Bermingham
+ */
+public class DenseItemSPM extends SPMAlgorithm {
+
+    private final SPMAlgorithm algo;
+
+    /**
+     * @param algo The algorithm to run on the dense sequences.
+     */
+    public DenseItemSPM(SPMAlgorithm algo){
+        this.algo = algo;
+    }
+
+    @Override
+    protected Collection<SequentialPattern> runImpl(SPMParameters params) {
+        startTimer();
+        final DenseItemMapper mapper = new DenseItemMapper(params.getSequenceSource(), params.getMinSup());
+        report("remap", -1, mapper.getNumDistinctItems(), mapper.getNumDenseItems(), -1, -1);
+
+        SPMParameters denseParams = new SPMParameters(mapper.toDense(params.getSequenceSource()), params.getMinSup());
+        denseParams.setMaxRedund(params.getMaxRedund());
+        denseParams.setTopK(params.getTopK());
+        denseParams.setNThreads(params.getNThreads());
+        denseParams.setIncrementalCover(params.isIncrementalCover());
+
+        algo.setListener(getListener());
+        try{
+            if(params.getOutFile() != null){
+                File denseFile;
+                try {
+                    denseFile = File.createTempFile("dense-patterns", ".bin");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+                try{
+                    denseParams.setOutFile(denseFile);
+                    denseParams.setBinaryOutput(true);
+                    algo.run(denseParams);
+                    mapPatterns(mapper, denseFile, params.getOutFile(), params.isBinaryOutput());
+                }finally {
+                    if(!denseFile.delete()){
+                        denseFile.deleteOnExit();
+                    }
+                }
+                return null;
+            }
+            Collection<SequentialPattern> densePatterns = algo.run(denseParams);
+            if(densePatterns == null){
+                return null;
+            }
+            ArrayList<SequentialPattern> patterns = new ArrayList<>(densePatterns.size());
+            for (SequentialPattern pattern : densePatterns) {
+                patterns.add(mapper.toOriginal(pattern));
+            }
+            return patterns;
+        }finally {
+            algo.setListener(null);
+        }
+    }
+
+    /**
+     * Copy the patterns of one file into another, mapping them back to the original items.
+     */
+    private void mapPatterns(DenseItemMapper mapper, File denseFile, File outFile, boolean binary){
+        PatternReader reader = PatternReader.open(denseFile);
+        PatternWriter writer = PatternWriter.open(outFile, binary);
+        long nPatterns = 0;
+        try{
+            while(reader.advance() && isRunning.get()){
+                int[] pattern = mapper.toOriginal(reader.getPattern());
+                if(reader.getCover() == -1){
+                    writer.write(pattern, reader.getSupport());
+                }else{
+                    writer.write(new CoveredSequentialPattern(pattern, reader.getSupport(), reader.getCover()));
+                }
+                nPatterns++;
+            }
+        }finally {
+            reader.close();
+            writer.close();
+        }
+        report("unmap", -1, -1, nPatterns, -1, -1);
+    }
+
+    /**
+     * Stop this and the algorithm it is running.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        algo.stop();
+    }
+
+    @Override
+    public String getSimpleName() {
+        return algo.getSimpleName();
+    }
+
+    @Override
+    public String getPatternType() {
+        return algo.getPatternType();
+    }
+
+    @Override
+    public String toString() {
+        return algo.toString();
+    }
+
+}
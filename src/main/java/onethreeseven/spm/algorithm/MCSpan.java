@@ -1,9 +1,7 @@
 package onethreeseven.spm.algorithm;
 
 import onethreeseven.spm.model.IPatternClosure;
-import onethreeseven.spm.model.TrieIterator;
-
-import java.util.ArrayList;
+import onethreeseven.spm.model.IntTrieIterator;
 
 /**
  * Mines max-contiguous sequential patterns.
@@ -16,7 +14,7 @@ public class MCSpan extends AbstractContiguousSPM {
     }
 
     @Override
-    protected boolean addToOutput(ArrayList<Integer> pattern, TrieIterator<Integer> patternIter) {
+    protected boolean addToOutput(IntTrieIterator patternIter) {
         //if the pattern is not marked we don't want to write it
         if(!patternIter.isMarked()){
             return false;
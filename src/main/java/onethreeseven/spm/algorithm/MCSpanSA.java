@@ -0,0 +1,30 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.model.IPatternClosure;
+
+/**
+ * Mines maximal contiguous sequential patterns using a suffix array, see {@link AbstractSuffixArraySPM}.
+ * Produces the same patterns as {@link MCSpan}.
+ * @author Luke Bermingham
+ */
+public class MCSpanSA extends AbstractSuffixArraySPM {
+    @Override
+    protected IPatternClosure getPatternClosure() {
+        return IPatternClosure.MAX;
+    }
+
+    @Override
+    public String toString() {
+        return "MCSpanSA(Max-Contiguous)";
+    }
+
+    @Override
+    public String getSimpleName() {
+        return "mcspan-sa";
+    }
+
+    @Override
+    public String getPatternType() {
+        return "max contiguous";
+    }
+}
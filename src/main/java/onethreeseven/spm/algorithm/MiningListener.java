@@ -0,0 +1,12 @@
+package onethreeseven.spm.algorithm;
+
+/**
+ * Receives progress reports from a running {@link SPMAlgorithm} (see {@link SPMAlgorithm#setListener(MiningListener)}).
+ * Reports arrive on the mining thread, so a listener should be quick.
+ * @author Luke Bermingham
+ */
+public interface MiningListener {
+
+    void onProgress(MiningMetrics metrics);
+
+}
@@ -0,0 +1,131 @@
+package onethreeseven.spm.algorithm;
+
+/**
+ * A snapshot of the progress of a mining algorithm, see {@link MiningListener}.
+ * Counts that do not apply to a phase are -1.
+ * The phases are:
+ * <ul>
+ *     <li>"level" - a level-wise miner finished the patterns of length {@link #getLevel()}.</li>
+ *     <li>"output" - the patterns were read out of the miner.</li>
+ *     <li>"index" - DCSpan indexed the candidate patterns by their pairs.</li>
+ *     <li>"select" - DCSpan is (or has finished) selecting patterns.</li>
+ *     <li>"remap" - {@link DenseItemSPM} mapped the items, the candidates are the distinct items
+ *     and the patterns are the frequent items.</li>
+ *     <li>"unmap" - {@link DenseItemSPM} mapped the patterns in the out file back to the original items.</li>
+ * </ul>
+ * @author Luke Bermingham
+ */
+public class MiningMetrics {
+
+    private final String algorithm;
+    private final String phase;
+    private final int level;
+    private final long candidates;
+    private final long patterns;
+    private final long trieNodes;
+    private final long iterations;
+    private final long elapsedMillis;
+    private final long heapUsedBytes;
+
+    /**
+     * @param algorithm The simple name of the algorithm.
+     * @param phase The phase the algorithm is in.
+     * @param level The pattern length (level) just finished.
+     * @param candidates The number of candidate patterns.
+     * @param patterns The number of patterns found (or kept) so far.
+     * @param trieNodes The number of nodes in the Trie.
+     * @param iterations The number of iterations done.
+     * @param elapsedMillis Milliseconds since the algorithm started.
+     * @param heapUsedBytes The heap in use when the snapshot was taken.
+     */
+    public MiningMetrics(String algorithm, String phase, int level, long candidates, long patterns,
+                         long trieNodes, long iterations, long elapsedMillis, long heapUsedBytes) {
+        this.algorithm = algorithm;
+        this.phase = phase;
+        this.level = level;
+        this.candidates = candidates;
+        this.patterns = patterns;
+        this.trieNodes = trieNodes;
+        this.iterations = iterations;
+        this.elapsedMillis = elapsedMillis;
+        this.heapUsedBytes = heapUsedBytes;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getCandidates() {
+        return candidates;
+    }
+
+    public long getPatterns() {
+        return patterns;
+    }
+
+    public long getTrieNodes() {
+        return trieNodes;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    /**
+     * @return This snapshot as a single line JSON object (every field is always present).
+     */
+    public String toJson(){
+        return "{\"algorithm\":\"" + algorithm + "\"" +
+                ",\"phase\":\"" + phase + "\"" +
+                ",\"level\":" + level +
+                ",\"candidates\":" + candidates +
+                ",\"patterns\":" + patterns +
+                ",\"trieNodes\":" + trieNodes +
+                ",\"iterations\":" + iterations +
+                ",\"elapsedMillis\":" + elapsedMillis +
+                ",\"heapUsedBytes\":" + heapUsedBytes + "}";
+    }
+
+    /**
+     * @return A human readable progress line, leaving out the counts that do not apply.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[").append(algorithm).append("] ").append(phase);
+        if(level >= 0){
+            sb.append(" ").append(level);
+        }
+        sb.append(":");
+        if(candidates >= 0){
+            sb.append(" ").append(candidates).append(" candidates,");
+        }
+        if(patterns >= 0){
+            sb.append(" ").append(patterns).append(" patterns,");
+        }
+        if(trieNodes >= 0){
+            sb.append(" ").append(trieNodes).append(" trie nodes,");
+        }
+        if(iterations >= 0){
+            sb.append(" ").append(iterations).append(" iterations,");
+        }
+        sb.append(String.format(" %.1fs, %dMB heap", elapsedMillis / 1000.0, heapUsedBytes >> 20));
+        return sb.toString();
+    }
+}
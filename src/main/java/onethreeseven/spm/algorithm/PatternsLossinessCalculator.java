@@ -1,6 +1,6 @@
 package onethreeseven.spm.algorithm;
 
-import onethreeseven.spm.data.SPMFParser;
+import onethreeseven.spm.data.PatternReader;
 import onethreeseven.spm.model.ContiguousSubSeqIterator;
 import onethreeseven.spm.model.Trie;
 import java.io.File;
@@ -14,7 +14,7 @@ import java.util.Arrays;
 public class PatternsLossinessCalculator {
 
     /**
-     *
+     * The pattern files are streamed, so they can be SPMF text or binary (see {@link PatternReader#open(File)}).
      * @param subsetPatterns A is a subset of B.
      * @param supersetPatterns B is the superset of A.
      * @return The percentage of B that intersects with A.
@@ -23,11 +23,12 @@ public class PatternsLossinessCalculator {
 
         //log.info("Loading subset patterns.");
         //build trie of subset patterns
-        int[][] subset = new SPMFParser().parseSequences(subsetPatterns);
         //log.info("Building trie from subset patterns.");
         Trie<Integer> t = new Trie<>();
         //populate trie with sequences from the subset pattern output
-        for (int[] sequence : subset) {
+        PatternReader subset = PatternReader.open(subsetPatterns);
+        while(subset.advance()){
+            int[] sequence = subset.getPattern();
             int k = sequence.length;
             while(k > 0){
                 ContiguousSubSeqIterator iter = new ContiguousSubSeqIterator(k, sequence);
@@ -37,22 +38,25 @@ public class PatternsLossinessCalculator {
                 k--;
             }
         }
-        subset = null;
+        subset.close();
 
         //check how many patterns in superset are contained in the trie
         //log.info("Loading superset patterns.");
-        int[][] superset = new SPMFParser().parseSequences(supersetPatterns);
+        PatternReader superset = PatternReader.open(supersetPatterns);
+        int nSuperset = 0;
         int nContained = 0;
         //log.info("Testing superset patterns for containment in the subset trie.");
-        for (int[] sequence : superset) {
-            Integer[] pattern = Arrays.stream(sequence).boxed().toArray(Integer[]::new);
+        while(superset.advance()){
+            Integer[] pattern = Arrays.stream(superset.getPattern()).boxed().toArray(Integer[]::new);
             if(t.getFrequencyOf(pattern) > 0){
                 nContained++;
             }
+            nSuperset++;
         }
+        superset.close();
 
         //1 minus x, because we want lossiness
-        return 1 - (double)nContained/superset.length;
+        return 1 - (double)nContained/nSuperset;
     }
 
 }
@@ -1,13 +1,15 @@
 package onethreeseven.spm.algorithm;
 
 import onethreeseven.collections.Range;
+import onethreeseven.spm.data.ArraySequenceSource;
 import onethreeseven.spm.data.SPMFParser;
+import onethreeseven.spm.data.SequenceSource;
 import onethreeseven.spm.model.SequentialPattern;
 
 import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Calculates redundancy from a sequence database as the number
@@ -26,10 +28,19 @@ public class RedundancyCalculator {
      * @return The percentage of redundant pairs in the sequences.
      */
     public double run(int[][] sequences){
+        return run(new ArraySequenceSource(sequences));
+    }
+
+    /**
+     * Find the percentage of repeated pairs, one sequence at a time.
+     * @param sequences The sequences to analyse.
+     * @return The percentage of redundant pairs in the sequences.
+     */
+    public double run(SequenceSource sequences){
 
         HashSet<Range> pairs = new HashSet<>();
-        AtomicInteger totalPairs = new AtomicInteger(0);
-        AtomicInteger redundantPairs = new AtomicInteger(0);
+        AtomicLong totalPairs = new AtomicLong(0);
+        AtomicLong redundantPairs = new AtomicLong(0);
 
         for (int[] sequence : sequences) {
             countPairs(sequence, totalPairs, redundantPairs, pairs);
@@ -42,8 +53,8 @@ public class RedundancyCalculator {
 
     public double run(Collection<SequentialPattern> patterns){
         HashSet<Range> pairs = new HashSet<>();
-        AtomicInteger totalPairs = new AtomicInteger(0);
-        AtomicInteger redundantPairs = new AtomicInteger(0);
+        AtomicLong totalPairs = new AtomicLong(0);
+        AtomicLong redundantPairs = new AtomicLong(0);
 
         for (SequentialPattern pattern : patterns) {
             countPairs(pattern.getSequence(), totalPairs, redundantPairs, pairs);
@@ -53,8 +64,8 @@ public class RedundancyCalculator {
     }
 
     private void countPairs(int[] sequence,
-                            AtomicInteger totalPairs,
-                            AtomicInteger redundantPairs,
+                            AtomicLong totalPairs,
+                            AtomicLong redundantPairs,
                             HashSet<Range> processedPairs){
         int lastIdx = sequence.length - 1;
         for (int j = 0; j < lastIdx; j++) {
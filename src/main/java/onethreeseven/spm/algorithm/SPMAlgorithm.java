@@ -12,8 +12,42 @@ import java.util.Collection;
  */
 public abstract class SPMAlgorithm extends BaseAlgorithm<Collection<SequentialPattern>, SPMParameters> {
 
+    private MiningListener listener = null;
+    private long startNanos = System.nanoTime();
+
     public abstract String getPatternType();
 
+    /**
+     * @param listener Receives progress reports while the algorithm runs, null for none.
+     */
+    public void setListener(MiningListener listener) {
+        this.listener = listener;
+    }
+
+    public MiningListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Start timing the run, reports give their elapsed time from here.
+     */
+    protected void startTimer(){
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Report progress to the listener (if any), see {@link MiningMetrics} for the meaning of each count.
+     */
+    protected void report(String phase, int level, long candidates, long patterns, long trieNodes, long iterations){
+        if(listener == null){
+            return;
+        }
+        Runtime rt = Runtime.getRuntime();
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+        listener.onProgress(new MiningMetrics(getSimpleName(), phase, level, candidates, patterns,
+                trieNodes, iterations, elapsedMillis, rt.totalMemory() - rt.freeMemory()));
+    }
+
     public String toString(){
         return getSimpleName() + "(" + getPatternType() + ")";
     }
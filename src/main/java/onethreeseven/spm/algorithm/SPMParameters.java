@@ -1,9 +1,13 @@
 package onethreeseven.spm.algorithm;
 
 import onethreeseven.common.util.FileUtil;
-import onethreeseven.spm.data.SPMFParser;
+import onethreeseven.spm.data.ArraySequenceSource;
+import onethreeseven.spm.data.MappedSequenceDb;
+import onethreeseven.spm.data.ParallelSPMFLoader;
+import onethreeseven.spm.data.SequenceSource;
 import onethreeseven.trajsuitePlugin.algorithm.BaseAlgorithmParams;
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Parameters for {@link SPMAlgorithm}
@@ -11,26 +15,54 @@ import java.io.File;
  */
 public class SPMParameters extends BaseAlgorithmParams {
 
-    private final int[][] sequences;
+    private final SequenceSource sequences;
+    //the sequences copied into memory, only once something asks for them
+    private int[][] sequencesInMemory = null;
     private int minSup;
     private double maxRedund;
     private int topK;
+    private int nThreads = 1;
+    private boolean incrementalCover = false;
+    private boolean binaryOutput = false;
 
     private File outFile = null;
 
     public SPMParameters(int[][] sequences, int minSup) {
+        this(sequences == null ? null : new ArraySequenceSource(sequences), minSup);
+    }
+
+    /**
+     * Mine sequences without requiring them all to be in memory, e.g. from a
+     * {@link onethreeseven.spm.data.SPMFSequenceSource} or a {@link MappedSequenceDb}.
+     * Note: algorithms that need random access to the sequences will still copy them into memory.
+     * @param sequences The sequences.
+     * @param minSup The minimum absolute support.
+     */
+    public SPMParameters(SequenceSource sequences, int minSup) {
         this.sequences = sequences;
         this.minSup = minSup;
         this.maxRedund = 0;
         this.topK = 10;
     }
 
+    /**
+     * Load the sequences from a file.
+     * @param spmfFile Either a SPMF sequences file or a binary sequences file (see {@link MappedSequenceDb}).
+     * @param minSup The minimum absolute support.
+     */
     public SPMParameters(File spmfFile, int minSup){
         if(!FileUtil.fileOkayToRead(spmfFile)){
             throw new IllegalArgumentException("Cannot read this spmf file: " + spmfFile);
         }
-        SPMFParser parser = new SPMFParser();
-        this.sequences = parser.parseSequences(spmfFile);
+        if(MappedSequenceDb.isBinarySequenceDb(spmfFile)){
+            try(MappedSequenceDb db = new MappedSequenceDb(spmfFile)){
+                this.sequences = new ArraySequenceSource(db.toArray());
+            }catch (IOException e){
+                throw new IllegalArgumentException("Cannot read this binary sequences file: " + spmfFile, e);
+            }
+        }else{
+            this.sequences = new ArraySequenceSource(new ParallelSPMFLoader().load(spmfFile));
+        }
 
         this.minSup = minSup;
         this.maxRedund = 0;
@@ -38,10 +70,22 @@ public class SPMParameters extends BaseAlgorithmParams {
     }
 
     /**
-     * Gets the sequences.
+     * Gets the sequences, copying them into memory if they are not already.
+     * Only the first call copies (e.g. parses the whole file of a streamed source),
+     * later calls return the same arrays.
      * @return The sequences to be passed as a parameter.
      */
     public int[][] getSequences() {
+        if(sequencesInMemory == null){
+            sequencesInMemory = sequences.toArray();
+        }
+        return sequencesInMemory;
+    }
+
+    /**
+     * @return The sequences, which can be scanned without loading them all into memory.
+     */
+    public SequenceSource getSequenceSource() {
         return sequences;
     }
 
@@ -61,6 +105,41 @@ public class SPMParameters extends BaseAlgorithmParams {
         this.topK = topK;
     }
 
+    /**
+     * @return The number of threads algorithms may use, 1 means run serially.
+     */
+    public int getNThreads() {
+        return nThreads;
+    }
+
+    public void setNThreads(int nThreads) {
+        this.nThreads = nThreads;
+    }
+
+    /**
+     * @return True if DCSpan should subtract the cover of consumed pairs from the remaining patterns,
+     * i.e. select patterns by the cover they would still add rather than by their original cover.
+     */
+    public boolean isIncrementalCover() {
+        return incrementalCover;
+    }
+
+    public void setIncrementalCover(boolean incrementalCover) {
+        this.incrementalCover = incrementalCover;
+    }
+
+    /**
+     * @return True if patterns written to the out file use the compact binary format
+     * (see {@link onethreeseven.spm.data.BinaryPatternWriter}) instead of SPMF text.
+     */
+    public boolean isBinaryOutput() {
+        return binaryOutput;
+    }
+
+    public void setBinaryOutput(boolean binaryOutput) {
+        this.binaryOutput = binaryOutput;
+    }
+
     public int getMinSup() {
         return minSup;
     }
@@ -70,7 +149,7 @@ public class SPMParameters extends BaseAlgorithmParams {
     }
 
     public double getMinSupRelative(){
-        return minSup / (double)this.sequences.length;
+        return minSup / (double)this.sequences.size();
     }
 
     public File getOutFile() {
@@ -87,12 +166,16 @@ public class SPMParameters extends BaseAlgorithmParams {
             System.err.println("Top-k must be greater than 0.");
             return false;
         }
+        if(nThreads < 1){
+            System.err.println("Number of threads must be greater than 0.");
+            return false;
+        }
         if(minSup < 1){
             System.err.println("Support must be greater than 0.");
             return false;
         }
         //if we have a file check if it is okay to read
-        if(sequences == null || sequences.length < 1){
+        if(sequences == null || sequences.size() < 1){
             System.err.println("Input sequences must be non-null and non-empty.");
             return false;
         }
@@ -1,27 +1,40 @@
 package onethreeseven.spm.algorithm;
 
+import onethreeseven.spm.data.ArraySequenceSource;
+import onethreeseven.spm.data.SequenceSource;
 import java.util.BitSet;
 
 /**
- * Calculate statistics for sequence databases in the format int[][].
+ * Calculate statistics for sequence databases in the format int[][], or any {@link SequenceSource}.
  * @author Luke Bermingham
  */
 public class SequenceDbStatsCalculator {
 
     private int totalSequences;
-    private int totalItems;
+    private long totalItems;
     private int nDistinctItems;
     private double avgSequenceLength;
     private double redundancy;
 
     public void calculate(int[][] seqDb){
+        calculate(new ArraySequenceSource(seqDb));
+    }
+
+    /**
+     * Calculate the stats one sequence at a time, so the database does not have to be an int[][],
+     * e.g. a {@link onethreeseven.spm.data.PackedSequenceDb} or a file that is streamed.
+     * @param seqDb The sequences, scanned twice (the second scan is for the redundancy).
+     */
+    public void calculate(SequenceSource seqDb){
         totalItems = 0;
-        totalSequences = seqDb.length;
+        totalSequences = 0;
 
         BitSet distinctItems = new BitSet();
 
         for (int[] sequence : seqDb) {
 
+            totalSequences++;
+
             totalItems += sequence.length;
 
             if(sequence.length == 0){
@@ -41,7 +54,7 @@ public class SequenceDbStatsCalculator {
         return totalSequences;
     }
 
-    public int getTotalItems() {
+    public long getTotalItems() {
         return totalItems;
     }
 
@@ -0,0 +1,79 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.model.IntTrie;
+import onethreeseven.spm.model.SequentialPattern;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Mines the top-k most frequent contiguous sequential patterns, without having to guess a minimum support.
+ * The supports of the best k patterns found so far are kept in a min-heap, once it holds k patterns
+ * the minimum support is raised to the smallest of them and everything below it is pruned from the Trie.
+ * As the support of a pattern is never more than the support of its sub-patterns, no pattern of the
+ * top-k is ever pruned, so the output is exactly what {@link ACSpan} would find using the
+ * k-th highest support as the minimum support (patterns tied with the k-th are all kept).
+ * The minimum support in the parameters is used as a floor, so it may be set to 1.
+ * @author Luke Bermingham
+ */
+public class TKCSpan extends ACSpan {
+
+    private int topK = 10;
+    //the supports of the best k patterns so far, the smallest on top
+    private final PriorityQueue<Integer> topSupports = new PriorityQueue<>();
+
+    @Override
+    protected Collection<SequentialPattern> runImpl(SPMParameters params) {
+        setup(params);
+        return super.runImpl(params);
+    }
+
+    @Override
+    public void run(SPMParameters params, PatternSink sink) {
+        setup(params);
+        super.run(params, sink);
+    }
+
+    private void setup(SPMParameters params){
+        this.topK = params.getTopK();
+        this.topSupports.clear();
+    }
+
+    @Override
+    protected int updateMinSup(IntTrie f, int k, List<int[]> candidates, int minSup) {
+        for (int[] candidate : candidates) {
+            int support = f.getFrequencyOf(candidate);
+            if(support < minSup){
+                continue;
+            }
+            if(topSupports.size() < topK){
+                topSupports.add(support);
+            }else if(support > topSupports.peek()){
+                topSupports.poll();
+                topSupports.add(support);
+            }
+        }
+        //case: the heap is full, so nothing below its smallest support can make the top-k
+        if(topSupports.size() == topK && topSupports.peek() > minSup){
+            minSup = topSupports.peek();
+            //prune the shorter patterns as well so they stop generating candidates
+            f.removeBelow(minSup);
+        }
+        return minSup;
+    }
+
+    @Override
+    public String toString() {
+        return "TKCSpan(Top-K-Contiguous)";
+    }
+
+    @Override
+    public String getSimpleName() {
+        return "tkcspan";
+    }
+
+    @Override
+    public String getPatternType() {
+        return "top-k contiguous";
+    }
+}
@@ -4,11 +4,15 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import com.beust.jcommander.converters.FileConverter;
 import onethreeseven.jclimod.CLICommand;
+import onethreeseven.spm.data.BinaryPatternReader;
+import onethreeseven.spm.data.MappedSequenceDb;
 import onethreeseven.spm.data.SPMFParser;
+import onethreeseven.spm.data.SPMFSequenceSource;
 import onethreeseven.spm.algorithm.SequenceDbStatsCalculator;
 import onethreeseven.common.util.FileUtil;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Gets the stats of an SPMF sequence database.
@@ -37,10 +41,21 @@ public class CalculateSPMFStats extends CLICommand{
 
     @Override
     protected boolean runImpl() {
-        int[][] sdb = new SPMFParser().parseSequences(in);
-        System.out.println("Loaded SPMF db: " + in.getName());
+        //the stats only need one sequence at a time, so stream the file rather than loading it
         SequenceDbStatsCalculator calc = new SequenceDbStatsCalculator();
-        calc.calculate(sdb);
+        if(MappedSequenceDb.isBinarySequenceDb(in)){
+            try(MappedSequenceDb sdb = new MappedSequenceDb(in)){
+                calc.calculate(sdb);
+            }catch (IOException e){
+                System.err.println("Could not map binary sequences file: " + e.getMessage());
+                return false;
+            }
+        }else if(BinaryPatternReader.isBinaryPatternFile(in)){
+            calc.calculate(new SPMFParser().parseSequences(in));
+        }else{
+            calc.calculate(new SPMFSequenceSource(in));
+        }
+        System.out.println("Read SPMF db: " + in.getName());
         calc.printStats();
         return true;
     }
@@ -0,0 +1,83 @@
+package onethreeseven.spm.command;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.converters.FileConverter;
+import onethreeseven.common.util.FileUtil;
+import onethreeseven.jclimod.CLICommand;
+import onethreeseven.spm.data.BinarySequenceWriter;
+
+import java.io.File;
+
+/**
+ * Converts an SPMF sequence database into the binary format, which can be memory-mapped.
+ * @see onethreeseven.spm.data.MappedSequenceDb
+ * @author Luke Bermingham
+ */
+public class ConvertSequences extends CLICommand {
+
+    @Parameter(names = {"-i", "--in"}, description = "The input SPMF sequences file.", converter = FileConverter.class)
+    private File in;
+
+    @Parameter(names = {"-o", "--out"}, description = "The output binary sequences file.", converter = FileConverter.class)
+    private File out;
+
+    @Override
+    protected String getUsage() {
+        return "spmf2bin -i sequences.txt -o sequences.bin";
+    }
+
+    @Override
+    protected boolean parametersValid() {
+        if(!FileUtil.fileOkayToRead(in)){
+            System.err.println("Could not read input spmf file: " + in);
+            return false;
+        }
+        if(out == null){
+            System.err.println("An output file must be specified, try -o sequences.bin");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean runImpl() {
+        long startTime = System.currentTimeMillis();
+        int nSequences = BinarySequenceWriter.convert(in, out);
+        if(nSequences < 0){
+            return false;
+        }
+        long runningTime = System.currentTimeMillis() - startTime;
+        System.out.println("Converted " + nSequences + " sequences to " + out.getName() + " in " + runningTime + "ms");
+        return true;
+    }
+
+    @Override
+    public boolean shouldStoreRerunAlias() {
+        return false;
+    }
+
+    @Override
+    public String generateRerunAliasBasedOnParams() {
+        return null;
+    }
+
+    @Override
+    public String getCategory() {
+        return "Input";
+    }
+
+    @Override
+    public String getCommandName() {
+        return "spmf2bin";
+    }
+
+    @Override
+    public String[] getOtherCommandNames() {
+        return new String[]{"convertSequences"};
+    }
+
+    @Override
+    public String getDescription() {
+        return "Convert an SPMF sequence database file into the binary memory-mappable format.";
+    }
+}
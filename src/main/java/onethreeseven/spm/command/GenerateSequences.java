@@ -0,0 +1,170 @@
+package onethreeseven.spm.command;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.converters.FileConverter;
+import onethreeseven.jclimod.CLICommand;
+import onethreeseven.spm.data.SyntheticSequenceGenerator;
+import onethreeseven.spm.model.SequentialPattern;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a synthetic sequence database to disk, see {@link SyntheticSequenceGenerator}.
+ * @author Luke Bermingham
+ */
+public class GenerateSequences extends CLICommand {
+
+    @Parameter(names = {"-o", "--out"}, description = "The output sequences file.", converter = FileConverter.class)
+    private File out;
+
+    @Parameter(names = {"-n", "--nSequences"}, description = "The number of sequences.")
+    private int nSequences = 1000;
+
+    @Parameter(names = {"--minLength"}, description = "The minimum sequence length.")
+    private int minLength = 100;
+
+    @Parameter(names = {"--maxLength"}, description = "The maximum sequence length.")
+    private int maxLength = 100;
+
+    @Parameter(names = {"-d", "--nItems"}, description = "The number of distinct background items to draw from. " +
+            "The background patterns only hold nPatterns * maxPatternLength items, so at most that many distinct items " +
+            "appear (1250 by default), raise --nPatterns or --maxPatternLength for more.")
+    private int nItems = 1000;
+
+    @Parameter(names = {"--nPatterns"}, description = "The number of random background patterns the sequences are built from.")
+    private int nPatterns = 50;
+
+    @Parameter(names = {"--maxPatternLength"}, description = "The maximum length of each background pattern.")
+    private int maxPatternLength = 25;
+
+    @Parameter(names = {"--itemSkew"}, description = "The Zipf exponent of the item frequencies, 0 is uniform.")
+    private double itemSkew = 0;
+
+    @Parameter(names = {"--patternSkew"}, description = "The Zipf exponent of the background pattern frequencies, 0 is uniform.")
+    private double patternSkew = 0;
+
+    @Parameter(names = {"--seed"}, description = "The random seed, the same seed and settings give the same sequences.")
+    private long seed = 137;
+
+    @Parameter(names = {"-p", "--plant"}, description = "A pattern to plant with a known support, " +
+            "written as comma separated items then a colon and the support, i.e. 1001,1002,1003:500. Can be repeated.")
+    private List<String> planted = new ArrayList<>();
+
+    @Parameter(names = {"-b", "--binary"}, description = "If true, the sequences are written in the binary memory-mappable format instead of SPMF.")
+    private boolean binary = false;
+
+    private SyntheticSequenceGenerator gen = null;
+
+    @Override
+    protected String getUsage() {
+        return "genSequences -n 100000 --minLength 50 --maxLength 500 -d 10000 --nPatterns 1000 --itemSkew 1.1 -p 1001,1002,1003:500 -o sequences.txt";
+    }
+
+    @Override
+    protected boolean parametersValid() {
+        if(out == null){
+            System.err.println("An output file must be specified, try -o sequences.txt");
+            return false;
+        }
+        if(nSequences < 1 || nItems < 1){
+            System.err.println("The number of sequences and items must be greater than 0.");
+            return false;
+        }
+        if(minLength < 1 || maxLength < minLength){
+            System.err.println("Sequence lengths must be at least 1 and the min length cannot exceed the max length.");
+            return false;
+        }
+        if(nPatterns < 1 || maxPatternLength < 1){
+            System.err.println("The number of background patterns and their max length must be greater than 0.");
+            return false;
+        }
+        gen = new SyntheticSequenceGenerator();
+        gen.setnSequences(nSequences);
+        gen.setSequenceLength(minLength, maxLength);
+        gen.setnDistinctItems(nItems);
+        gen.setBackgroundPatterns(nPatterns, maxPatternLength);
+        gen.setItemSkew(itemSkew);
+        gen.setPatternSkew(patternSkew);
+        gen.setSeed(seed);
+        for (String plant : planted) {
+            try{
+                String[] parts = plant.split(":");
+                String[] itemStrs = parts[0].split(",");
+                int[] pattern = new int[itemStrs.length];
+                for (int i = 0; i < itemStrs.length; i++) {
+                    pattern[i] = Integer.parseInt(itemStrs[i].trim());
+                }
+                gen.plantPattern(pattern, Integer.parseInt(parts[1].trim()));
+            }catch (RuntimeException e){
+                System.err.println("Could not plant pattern " + plant + ", expected items:support, i.e. 1,2,3:50. " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean runImpl() {
+        long startTime = System.currentTimeMillis();
+        long nWritten = binary ? gen.writeBinary(out) : gen.write(out);
+        if(nWritten < 0){
+            return false;
+        }
+        long runningTime = System.currentTimeMillis() - startTime;
+        System.out.println("Generated " + nSequences + " sequences (" + nWritten + " items) to " +
+                out.getName() + " in " + runningTime + "ms");
+        for (SequentialPattern pattern : gen.getPlantedPatterns()) {
+            System.out.println("Planted: " + pattern);
+        }
+        return true;
+    }
+
+    @Override
+    protected void resetParametersAfterRun(Class clazz) {
+        super.resetParametersAfterRun(clazz);
+        nSequences = 1000;
+        minLength = 100;
+        maxLength = 100;
+        nItems = 1000;
+        nPatterns = 50;
+        maxPatternLength = 25;
+        itemSkew = 0;
+        patternSkew = 0;
+        seed = 137;
+        planted = new ArrayList<>();
+        binary = false;
+        gen = null;
+    }
+
+    @Override
+    public boolean shouldStoreRerunAlias() {
+        return false;
+    }
+
+    @Override
+    public String generateRerunAliasBasedOnParams() {
+        return null;
+    }
+
+    @Override
+    public String getCategory() {
+        return "Input";
+    }
+
+    @Override
+    public String getCommandName() {
+        return "genSequences";
+    }
+
+    @Override
+    public String[] getOtherCommandNames() {
+        return new String[]{"generateSequences", "genseqs"};
+    }
+
+    @Override
+    public String getDescription() {
+        return "Generate a synthetic sequence database with skewed item frequencies and planted patterns.";
+    }
+}
@@ -4,7 +4,7 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.converters.FileConverter;
 import onethreeseven.common.util.FileUtil;
 import onethreeseven.jclimod.CLICommand;
-import onethreeseven.spm.data.SPMFParser;
+import onethreeseven.spm.data.ParallelSPMFLoader;
 import onethreeseven.trajsuitePlugin.model.TransactionProcessor;
 import onethreeseven.trajsuitePlugin.transaction.AddEntitiesTransaction;
 
@@ -20,6 +20,9 @@ public class LoadSequences extends CLICommand {
     @Parameter(names = {"-i", "--in"}, description = "The spmf sequences file to load.", converter = FileConverter.class)
     private File inputFile;
 
+    @Parameter(names = {"-t", "--threads"}, description = "The number of threads used to parse the file, defaults to the number of processors.")
+    private int nThreads = Runtime.getRuntime().availableProcessors();
+
     @Override
     protected String getUsage() {
         return "loadSequences -i sequences.txt";
@@ -27,6 +30,10 @@ public class LoadSequences extends CLICommand {
 
     @Override
     protected boolean parametersValid() {
+        if(nThreads < 1){
+            System.err.println("Number of threads must be greater than 0.");
+            return false;
+        }
         return FileUtil.fileOkayToRead(inputFile);
     }
 
@@ -34,8 +41,7 @@ public class LoadSequences extends CLICommand {
     protected boolean runImpl() {
 
         //load sequences into memory
-        SPMFParser parser = new SPMFParser();
-        int[][] seqs = parser.parseSequences(inputFile);
+        int[][] seqs = new ParallelSPMFLoader(nThreads).load(inputFile);
 
         //add them to layers in this transaction
         AddEntitiesTransaction transaction = new AddEntitiesTransaction();
@@ -51,6 +57,12 @@ public class LoadSequences extends CLICommand {
         return true;
     }
 
+    @Override
+    protected void resetParametersAfterRun(Class clazz) {
+        super.resetParametersAfterRun(clazz);
+        nThreads = Runtime.getRuntime().availableProcessors();
+    }
+
     @Override
     public boolean shouldStoreRerunAlias() {
         return true;
@@ -5,13 +5,21 @@ import com.beust.jcommander.converters.FileConverter;
 import onethreeseven.common.util.FileUtil;
 import onethreeseven.jclimod.CLICommand;
 import onethreeseven.spm.algorithm.*;
+import onethreeseven.spm.data.MappedSequenceDb;
+import onethreeseven.spm.data.PackedSequenceDb;
+import onethreeseven.spm.data.SPMFSequenceSource;
+import onethreeseven.spm.data.SequenceSource;
 import onethreeseven.spm.model.SequentialPattern;
 import onethreeseven.trajsuitePlugin.model.EntitySupplier;
 import onethreeseven.trajsuitePlugin.model.TransactionProcessor;
 import onethreeseven.trajsuitePlugin.model.WrappedEntity;
 import onethreeseven.trajsuitePlugin.transaction.AddEntitiesTransaction;
 import onethreeseven.trajsuitePlugin.util.IdGenerator;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.*;
 
 /**
@@ -30,12 +38,17 @@ public class MineSequentialPatterns extends CLICommand {
         supportedAlgos.put(new MCSpan().getSimpleName(), new MCSpan());
         supportedAlgos.put(new CCSpan().getSimpleName(), new CCSpan());
         supportedAlgos.put(new DCSpan().getSimpleName(), new DCSpan());
+        supportedAlgos.put(new TKCSpan().getSimpleName(), new TKCSpan());
+        supportedAlgos.put(new ACSpanSA().getSimpleName(), new ACSpanSA());
+        supportedAlgos.put(new CCSpanSA().getSimpleName(), new CCSpanSA());
+        supportedAlgos.put(new MCSpanSA().getSimpleName(), new MCSpanSA());
         //supportedAlgos.put(new CloSpanWrapper().getSimpleName(), new CloSpanWrapper());
         //supportedAlgos.put(new CMClaspWrapper().getSimpleName(), new CMClaspWrapper());
         //supportedAlgos.put(new TKSWrapper().getSimpleName(), new TKSWrapper());
     }
 
-    @Parameter(names = {"-k", "--topK"}, description = "The top-k patterns to keep. Only relevant if using -a tks")
+    @Parameter(names = {"-k", "--topK"}, description = "The top-k patterns to keep. Only relevant if using -a tkcspan or -a tks, " +
+            "for tkcspan the minimum support is raised as the top-k fill up, so -s can be set to 1.")
     private int topK = 10;
 
     @Parameter(names = {"-s", "--minsup"}, description = "The minimum absolute support.")
@@ -47,11 +60,50 @@ public class MineSequentialPatterns extends CLICommand {
     @Parameter(names = {"-o", "--out"}, description= "The output sequential pattern.", converter = FileConverter.class)
     private File out;
 
-    @Parameter(names = {"-a", "--algo"}, description = "The chosen sequential pattern mining algorithm, valid options include: cmspam, cmspade, vmsp, prefixspan, acspan, ccspan, mcspan, dcspan, clospan, cmclasp, tks.")
+    @Parameter(names = {"-a", "--algo"}, description = "The chosen sequential pattern mining algorithm, valid options include: cmspam, cmspade, vmsp, prefixspan, acspan, ccspan, mcspan, dcspan, tkcspan, acspan-sa, ccspan-sa, mcspan-sa, clospan, cmclasp, tks.")
     private String algoName = null;
     private SPMAlgorithm algo = null;
     private SPMParameters params = null;
 
+    @Parameter(names = {"-t", "--threads"}, description = "The number of threads used to count candidate patterns " +
+            "in the contiguous algorithms (acspan, ccspan, mcspan, dcspan, tkcspan), the output is the same for any number of threads.")
+    private int nThreads = 1;
+
+    @Parameter(names = {"--incremental"}, description = "If using DCSPAN, the cover of each remaining pattern is reduced as " +
+            "selected patterns consume its pairs, so each pick is the pattern that adds the most new cover. " +
+            "Note, for other algorithms this parameter has no effect.")
+    private boolean incrementalCover = false;
+
+    @Parameter(names = {"--stream"}, description = "If true, the input file is scanned from disk instead of loaded into memory, " +
+            "so databases larger than memory can be mined. Binary sequence files are memory-mapped. " +
+            "Only acspan, ccspan, mcspan, dcspan and tkcspan support this, other algorithms still load the file.")
+    private boolean stream = false;
+
+    @Parameter(names = {"--packed"}, description = "If true, the input file is loaded into memory bit-packed " +
+            "(each item takes only the bits its id range needs) instead of as an int[][], so much larger databases fit in memory. " +
+            "Only acspan, ccspan, mcspan, dcspan and tkcspan mine from it directly, other algorithms copy it into an int[][]. " +
+            "Packing reads the input up to three times, so a SPMF file is parsed three times; " +
+            "convert it with convertSequences first to make loading cheaper.")
+    private boolean packed = false;
+
+    @Parameter(names = {"--dense"}, description = "If true, item ids are mapped to dense ranks (by support, dropping " +
+            "items below the minimum support) before mining and the patterns are mapped back afterwards. " +
+            "Helps when item ids are sparse, the patterns are the same but may come out in a different order.")
+    private boolean dense = false;
+
+    @Parameter(names = {"--binaryOut"}, description = "If true, the output patterns file is written in a compact binary format " +
+            "(shared prefixes and varint items) instead of SPMF text, it replaces the file rather than appending to it.")
+    private boolean binaryOut = false;
+
+    @Parameter(names = {"--progress"}, description = "If true, a progress line (phase, level, candidates, patterns, " +
+            "trie nodes, elapsed time and heap used) is printed as the algorithm runs. " +
+            "Only acspan, ccspan, mcspan, dcspan and tkcspan report progress.")
+    private boolean progress = false;
+
+    @Parameter(names = {"--metrics"}, description = "A file to write the progress metrics to, one JSON record per line.",
+            converter = FileConverter.class)
+    private File metricsFile = null;
+
     @Parameter(names = {"-q", "--quiet"}, description = "If true, outputs some extra information like total running time.")
     private boolean quiet = false;
 
@@ -73,38 +125,74 @@ public class MineSequentialPatterns extends CLICommand {
             return false;
         }
 
+        //check the algorithm before any input file is opened
+        if(algoName == null || algoName.isEmpty()){
+            System.err.println("SPM algorithm name must be non-null, try -a ccspan");
+            return false;
+        }else if(!supportedAlgos.containsKey(algoName)){
+            System.err.println("Unsupported spm algorithm, was passed: " + algoName);
+            System.err.println("The following algorithm names are supported as input parameters: ");
+            for (String spmAlgorithm : supportedAlgos.keySet()) {
+                System.err.println(spmAlgorithm);
+            }
+            return false;
+        }
+
+        algo = supportedAlgos.get(algoName);
+        if(dense){
+            algo = new DenseItemSPM(algo);
+        }
+
         int[][] seqDb = (in == null) ? getSelectedSequences() : null;
-        if(seqDb == null){
+        if(in == null && seqDb == null){
             System.err.println("There was no selected sequences database of integers. Please select a int[][] next time.");
             return false;
         }
-        if(in != null){
+        if(in != null && (stream || packed)){
+            SequenceSource source;
+            if(MappedSequenceDb.isBinarySequenceDb(in)){
+                try {
+                    source = new MappedSequenceDb(in);
+                } catch (IOException e) {
+                    System.err.println("Could not map binary sequences file: " + e.getMessage());
+                    return false;
+                }
+            }else{
+                source = new SPMFSequenceSource(in);
+            }
+            if(packed){
+                SequenceSource fileSource = source;
+                try{
+                    source = new PackedSequenceDb(fileSource);
+                }finally {
+                    if(fileSource instanceof Closeable){
+                        try {
+                            ((Closeable) fileSource).close();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+            params = new SPMParameters(source, minSup);
+        }
+        else if(in != null){
             params = new SPMParameters(in, minSup);
         }else{
             params = new SPMParameters(seqDb, minSup);
         }
         params.setMaxRedund(maxRedundancy);
         params.setTopK(topK);
+        params.setNThreads(nThreads);
+        params.setIncrementalCover(incrementalCover);
         params.setOutFile(out);
+        params.setBinaryOutput(binaryOut);
 
         if(!params.areParametersValid()){
+            closeSequenceSource();
             return false;
         }
 
-        if(algoName == null || algoName.isEmpty()){
-            System.err.println("SPM algorithm name must be non-null, try -a ccspan");
-            return false;
-        }else if(!supportedAlgos.containsKey(algoName)){
-            System.err.println("Unsupported spm algorithm, was passed: " + algoName);
-            System.err.println("The following algorithm names are supported as input parameters: ");
-            for (String spmAlgorithm : supportedAlgos.keySet()) {
-                System.err.println(spmAlgorithm);
-            }
-            return false;
-        }
-
-        algo = supportedAlgos.get(algoName);
-
         return true;
     }
 
@@ -143,6 +231,14 @@ public class MineSequentialPatterns extends CLICommand {
         minSup = 10;
         topK = 10;
         maxRedundancy = 0.5;
+        nThreads = 1;
+        stream = false;
+        packed = false;
+        dense = false;
+        incrementalCover = false;
+        binaryOut = false;
+        progress = false;
+        metricsFile = null;
         quiet = false;
     }
 
@@ -153,49 +249,102 @@ public class MineSequentialPatterns extends CLICommand {
 
         if(algo != null && params != null){
 
-            boolean writingOutput = out != null;
-
-            //write patterns to file
-            if(writingOutput){
-                algo.run(params);
+            PrintWriter metricsWriter = null;
+            if(metricsFile != null){
+                try {
+                    metricsWriter = new PrintWriter(new FileWriter(metricsFile));
+                } catch (IOException e) {
+                    System.err.println("Could not open metrics file: " + e.getMessage());
+                    closeSequenceSource();
+                    return false;
+                }
             }
-            //storing patterns using a service
-            else{
-
-                //run it and keep patterns in memory
-                Collection<SequentialPattern> patterns = algo.run(params);
-
-                //make an add entities transactions
-                AddEntitiesTransaction transaction = new AddEntitiesTransaction();
-                String layername = algo.toString() + "_" + patterns.size() + "patterns";
-
-                for (SequentialPattern pattern : patterns) {
-                    if(!this.isRunning.get()){
-                        return false;
+            if(progress || metricsWriter != null){
+                final PrintWriter metricsOut = metricsWriter;
+                algo.setListener(metrics -> {
+                    if(progress){
+                        System.out.println(metrics);
                     }
-                    transaction.add(layername, IdGenerator.nextId(), pattern);
-                }
-
-                ServiceLoader<TransactionProcessor> services = ServiceLoader.load(TransactionProcessor.class);
-                for (TransactionProcessor service : services) {
-                    if(!this.isRunning.get()){
-                        return false;
+                    if(metricsOut != null){
+                        metricsOut.println(metrics.toJson());
                     }
-                    service.process(transaction);
-                }
+                });
+            }
 
+            boolean completed;
+            try{
+                completed = runAlgo();
+            }finally {
+                //the algorithms are shared between runs, so do not leave this run's listener on them
+                algo.setListener(null);
+                if(metricsWriter != null){
+                    metricsWriter.close();
+                }
+                //release the input file if it was being streamed, however the run ended
+                closeSequenceSource();
             }
 
             long runningTime = System.currentTimeMillis() - startTime;
-            if(!quiet){
+            if(completed && !quiet){
                 System.out.println("Running SPM algo, " + algo + " took " + runningTime + "ms");
             }
 
-            return true;
+            return completed;
         }
         return false;
     }
 
+    private boolean runAlgo(){
+
+        boolean writingOutput = out != null;
+
+        //write patterns to file
+        if(writingOutput){
+            algo.run(params);
+        }
+        //storing patterns using a service
+        else{
+
+            //run it and keep patterns in memory
+            Collection<SequentialPattern> patterns = algo.run(params);
+
+            //make an add entities transactions
+            AddEntitiesTransaction transaction = new AddEntitiesTransaction();
+            String layername = algo.toString() + "_" + patterns.size() + "patterns";
+
+            for (SequentialPattern pattern : patterns) {
+                if(!this.isRunning.get()){
+                    return false;
+                }
+                transaction.add(layername, IdGenerator.nextId(), pattern);
+            }
+
+            ServiceLoader<TransactionProcessor> services = ServiceLoader.load(TransactionProcessor.class);
+            for (TransactionProcessor service : services) {
+                if(!this.isRunning.get()){
+                    return false;
+                }
+                service.process(transaction);
+            }
+
+        }
+
+        return true;
+    }
+
+    /**
+     * Close the sequences if they are being read from a file (e.g. a mapped binary file).
+     */
+    private void closeSequenceSource(){
+        if(params != null && params.getSequenceSource() instanceof Closeable){
+            try {
+                ((Closeable) params.getSequenceSource()).close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     @Override
     public void stop() {
         super.stop();
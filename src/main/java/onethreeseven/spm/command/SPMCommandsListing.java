@@ -14,7 +14,9 @@ public class SPMCommandsListing extends AbstractCommandsListing {
         return new CLICommand[]{
                 new MineSequentialPatterns(),
                 new CalculateSPMFStats(),
-                new LoadSequences()
+                new LoadSequences(),
+                new ConvertSequences(),
+                new GenerateSequences()
         };
     }
 }
@@ -0,0 +1,36 @@
+package onethreeseven.spm.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A {@link SequenceSource} over sequences that are already in memory.
+ * @author Luke Bermingham
+ */
+public class ArraySequenceSource implements SequenceSource {
+
+    private final int[][] sequences;
+
+    public ArraySequenceSource(int[][] sequences){
+        this.sequences = sequences;
+    }
+
+    @Override
+    public int size() {
+        return sequences.length;
+    }
+
+    /**
+     * @return The underlying sequences (not a copy).
+     */
+    @Override
+    public int[][] toArray() {
+        return sequences;
+    }
+
+    @Override
+    public Iterator<int[]> iterator() {
+        return Arrays.asList(sequences).iterator();
+    }
+
+}
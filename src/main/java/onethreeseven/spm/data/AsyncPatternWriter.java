@@ -0,0 +1,195 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.model.SequentialPattern;
+import java.io.File;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes patterns to file on a dedicated thread, so the mining thread can keep going while the
+ * patterns are formatted and written by another {@link PatternWriter}.
+ * Patterns are handed over through a bounded ring buffer, when it is full the mining thread waits
+ * for the writer to catch up (so memory use stays bounded however far ahead mining gets).
+ * The patterns are written in the order they were given and they are all in the file once
+ * {@link #close()} returns.
+ * Note: the pattern arrays are written some time after they are given, so they must not be changed afterwards.
+ * @author Luke Bermingham
+ */
+public class AsyncPatternWriter implements PatternWriter {
+
+    private static final int defaultCapacity = 1 << 13;
+
+    private final PatternWriter writer;
+    private final Thread writerThread;
+
+    //the ring buffer, a slot holds either a pattern object or raw items and a support
+    private final SequentialPattern[] patterns;
+    private final int[][] sequences;
+    private final int[] supports;
+    private int head = 0;
+    private int size = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private boolean closed = false;
+    private boolean failed = false;
+    //only say once that patterns are being dropped, there may be millions more
+    private boolean reportedDropping = false;
+
+    /**
+     * @param file The file to append the patterns to, as SPMF text (see {@link SequentialPatternWriter}).
+     */
+    public AsyncPatternWriter(File file){
+        this(new SequentialPatternWriter(file), defaultCapacity);
+    }
+
+    public AsyncPatternWriter(PatternWriter writer){
+        this(writer, defaultCapacity);
+    }
+
+    /**
+     * @param writer The writer that does the writing, it is closed when this is.
+     * @param capacity The most patterns that can be waiting to be written.
+     */
+    public AsyncPatternWriter(PatternWriter writer, int capacity){
+        if(capacity < 1){
+            throw new IllegalArgumentException("Capacity must be greater than 0.");
+        }
+        this.writer = writer;
+        this.patterns = new SequentialPattern[capacity];
+        this.sequences = new int[capacity][];
+        this.supports = new int[capacity];
+        this.writerThread = new Thread(this::drain, "pattern-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void write(SequentialPattern pattern){
+        put(pattern, null, 0);
+    }
+
+    @Override
+    public void write(int[] sequence, int support){
+        put(null, sequence, support);
+    }
+
+    private void put(SequentialPattern pattern, int[] sequence, int support){
+        lock.lock();
+        try{
+            while(size == patterns.length && !failed){
+                notFull.awaitUninterruptibly();
+            }
+            if(closed || failed){
+                if(!reportedDropping){
+                    reportedDropping = true;
+                    System.err.println("Cannot write because the pattern writer is closed (or failed), " +
+                            "this and any later patterns are dropped.");
+                }
+                return;
+            }
+            int tail = (head + size) % patterns.length;
+            patterns[tail] = pattern;
+            sequences[tail] = sequence;
+            supports[tail] = support;
+            size++;
+            //the writer only waits when there was nothing to write
+            if(size == 1){
+                notEmpty.signal();
+            }
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The writer thread, takes every waiting pattern at once then writes them outside of the lock.
+     */
+    private void drain(){
+        final int capacity = patterns.length;
+        final SequentialPattern[] batchPatterns = new SequentialPattern[capacity];
+        final int[][] batchSequences = new int[capacity][];
+        final int[] batchSupports = new int[capacity];
+        try{
+            while(true){
+                int n;
+                lock.lock();
+                try{
+                    while(size == 0 && !closed){
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    //case: closed and everything has been written
+                    if(size == 0){
+                        return;
+                    }
+                    n = size;
+                    for (int i = 0; i < n; i++) {
+                        int slot = (head + i) % capacity;
+                        batchPatterns[i] = patterns[slot];
+                        batchSequences[i] = sequences[slot];
+                        batchSupports[i] = supports[slot];
+                        patterns[slot] = null;
+                        sequences[slot] = null;
+                    }
+                    head = (head + n) % capacity;
+                    size = 0;
+                    notFull.signal();
+                }finally {
+                    lock.unlock();
+                }
+
+                for (int i = 0; i < n; i++) {
+                    if(batchPatterns[i] != null){
+                        writer.write(batchPatterns[i]);
+                        batchPatterns[i] = null;
+                    }else{
+                        writer.write(batchSequences[i], batchSupports[i]);
+                        batchSequences[i] = null;
+                    }
+                }
+            }
+        }catch (Throwable e){
+            //includes errors (e.g. out of memory), so the mining thread is never left waiting on a dead writer
+            e.printStackTrace();
+            //don't leave the mining thread waiting on a writer that is gone
+            lock.lock();
+            try{
+                failed = true;
+                notFull.signalAll();
+            }finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wait for every pattern to be written, then close the file.
+     */
+    @Override
+    public void close(){
+        lock.lock();
+        try{
+            if(closed){
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+        }finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while(writerThread.isAlive()){
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        writer.close();
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package onethreeseven.spm.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the binary patterns format written by {@link BinaryPatternWriter}, one pattern at a time.
+ * @author Luke Bermingham
+ */
+public class BinaryPatternReader implements PatternReader {
+
+    private FileChannel channel;
+    private final ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+    private boolean eof = false;
+
+    //the current pattern, the next one is built on top of it
+    private int[] items = new int[16];
+    private int length = 0;
+    private int curSup = -1;
+    private int curCover = -1;
+
+    public BinaryPatternReader(File patternFile){
+        try{
+            this.channel = FileChannel.open(patternFile.toPath(), StandardOpenOption.READ);
+            buf.limit(0);
+            if(!fill(2 * Integer.BYTES) || buf.getInt() != BinaryPatternWriter.MAGIC ||
+                    buf.getInt() != BinaryPatternWriter.VERSION){
+                System.err.println("Not a binary patterns file: " + patternFile);
+                close();
+            }
+        }catch (IOException e){
+            System.err.println("Could not open binary patterns file: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * @param file The file to check.
+     * @return True if the file starts like a binary patterns file.
+     */
+    public static boolean isBinaryPatternFile(File file){
+        try(FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            if(ch.read(magic, 0) < Integer.BYTES){
+                return false;
+            }
+            return magic.getInt(0) == BinaryPatternWriter.MAGIC;
+        }catch (IOException e){
+            return false;
+        }
+    }
+
+    @Override
+    public boolean advance(){
+        if(channel == null){
+            return false;
+        }
+        try{
+            //case: no more patterns
+            if(!fill(1)){
+                return false;
+            }
+            final int prefixLength = readVarint();
+            final int suffixLength = readVarint();
+            final int newLength = prefixLength + suffixLength;
+            if(prefixLength > length || newLength < 0){
+                throw new IOException("Corrupt binary patterns file, prefix is longer than the previous pattern.");
+            }
+            if(items.length < newLength){
+                items = Arrays.copyOf(items, Math.max(newLength, items.length * 2));
+            }
+            int prevItem = (prefixLength == 0) ? 0 : items[prefixLength - 1];
+            for (int i = prefixLength; i < newLength; i++) {
+                prevItem += unzigzag(readVarint());
+                items[i] = prevItem;
+            }
+            this.length = newLength;
+            this.curSup = unzigzag(readVarint());
+            this.curCover = unzigzag(readVarint());
+            return true;
+        }catch (IOException e){
+            System.err.println("Could not read binary patterns file: " + e.getMessage());
+            close();
+        }
+        return false;
+    }
+
+    /**
+     * @return A copy of the current pattern.
+     */
+    @Override
+    public int[] getPattern(){
+        return Arrays.copyOf(items, length);
+    }
+
+    @Override
+    public int getSupport(){
+        return curSup;
+    }
+
+    @Override
+    public int getCover(){
+        return curCover;
+    }
+
+    private static int unzigzag(int value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if(!fill(1)){
+                throw new IOException("Unexpected end of binary patterns file.");
+            }
+            byte b = buf.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0){
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary patterns file, varint is too long.");
+    }
+
+    /**
+     * Make sure the buffer has at least the given number of bytes left, reading more of the file if it has to.
+     * @return False if the file ends first.
+     */
+    private boolean fill(int nBytes) throws IOException {
+        while(buf.remaining() < nBytes){
+            if(eof){
+                return false;
+            }
+            buf.compact();
+            eof = channel.read(buf) < 0;
+            buf.flip();
+        }
+        return true;
+    }
+
+    @Override
+    public void close(){
+        if(channel == null){
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+}
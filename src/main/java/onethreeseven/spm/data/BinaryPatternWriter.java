@@ -0,0 +1,146 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.model.CoveredSequentialPattern;
+import onethreeseven.spm.model.SequentialPattern;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes patterns in a compact binary format, read back by {@link BinaryPatternReader}.
+ * Patterns read out of a Trie share long prefixes with the pattern before them, so each pattern only
+ * stores how many items it shares with the previous pattern and then the rest of its items.
+ * Each item is stored as the difference to the item before it (neighbouring ids give small numbers)
+ * and every number is a varint, so most take one or two bytes rather than a handful of decimal digits.
+ *
+ * The format is:
+ * <pre>
+ * int magic ("SPMP"), int version                  - the 8 byte (big-endian) header
+ * then for each pattern:
+ * varint prefixLength                              - the number of leading items shared with the previous pattern
+ * varint suffixLength                              - the number of items that follow
+ * zigzag varint[suffixLength] deltas               - each item minus the item before it (the first item is minus 0)
+ * zigzag varint support, zigzag varint cover       - -1 if the pattern has none
+ * </pre>
+ * Unlike {@link SequentialPatternWriter} this replaces the file rather than appending to it.
+ * @author Luke Bermingham
+ */
+public class BinaryPatternWriter implements PatternWriter {
+
+    static final int MAGIC = 0x53504D50;
+    static final int VERSION = 1;
+    //the most bytes a varint int can take
+    static final int MAX_VARINT_BYTES = 5;
+
+    private FileChannel channel;
+    private final ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+    //the previous pattern, to share prefixes with
+    private int[] prev = new int[16];
+    private int prevLength = 0;
+
+    public BinaryPatternWriter(File file){
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buf.putInt(MAGIC);
+            buf.putInt(VERSION);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void write(SequentialPattern pattern){
+        int cover = (pattern instanceof CoveredSequentialPattern) ? ((CoveredSequentialPattern) pattern).getCover() : -1;
+        int[] sequence = pattern.getSequence();
+        write(sequence, sequence.length, pattern.getSupport(), cover);
+    }
+
+    @Override
+    public void write(int[] sequence, int support){
+        write(sequence, sequence.length, support, -1);
+    }
+
+    /**
+     * @param sequence The array holding the items of the pattern.
+     * @param length The number of items (from the start of the array) in the pattern.
+     * @param support The support of the pattern, or -1 for none.
+     * @param cover The cover of the pattern, or -1 for none.
+     */
+    public void write(int[] sequence, int length, int support, int cover){
+        if(channel == null){
+            System.err.println("Cannot write because the file channel is null, try making a new class.");
+            return;
+        }
+        int prefixLength = 0;
+        final int maxPrefix = Math.min(length, prevLength);
+        while(prefixLength < maxPrefix && sequence[prefixLength] == prev[prefixLength]){
+            prefixLength++;
+        }
+
+        putVarint(prefixLength);
+        putVarint(length - prefixLength);
+        int prevItem = (prefixLength == 0) ? 0 : sequence[prefixLength - 1];
+        for (int i = prefixLength; i < length; i++) {
+            putVarint(zigzag(sequence[i] - prevItem));
+            prevItem = sequence[i];
+        }
+        putVarint(zigzag(support));
+        putVarint(zigzag(cover));
+
+        //remember the pattern for the next one to share with
+        if(prev.length < length){
+            prev = Arrays.copyOf(prev, Math.max(length, prev.length * 2));
+        }
+        System.arraycopy(sequence, prefixLength, prev, prefixLength, length - prefixLength);
+        prevLength = length;
+    }
+
+    /**
+     * Map signed ints to unsigned so small negative numbers are small varints too.
+     */
+    static int zigzag(int value){
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private void putVarint(int value){
+        if(buf.remaining() < MAX_VARINT_BYTES){
+            flush();
+        }
+        //7 bits at a time, the high bit says there is more to come
+        while((value & ~0x7F) != 0){
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private void flush(){
+        buf.flip();
+        try {
+            while(buf.hasRemaining()){
+                channel.write(buf);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        buf.clear();
+    }
+
+    @Override
+    public void close(){
+        if(channel != null){
+            flush();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+
+}
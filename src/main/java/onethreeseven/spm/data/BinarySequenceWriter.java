@@ -0,0 +1,143 @@
+package onethreeseven.spm.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes sequences in the binary format read by {@link MappedSequenceDb}.
+ * Sequences are streamed to the file one at a time, so a SPMF file of any size can be converted
+ * while only keeping the sequence offsets on the heap.
+ * @author Luke Bermingham
+ */
+public class BinarySequenceWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+    private long[] offsets = new long[1024];
+    private int nSequences = 0;
+    private long nItems = 0;
+
+    public BinarySequenceWriter(File binaryFile) throws IOException {
+        this.channel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        //the header is written last, once the counts are known
+        channel.position(MappedSequenceDb.HEADER_BYTES);
+    }
+
+    /**
+     * Append a sequence.
+     * @param sequence The items of the sequence.
+     */
+    public void write(int[] sequence) throws IOException {
+        write(sequence, sequence.length);
+    }
+
+    /**
+     * Append a sequence.
+     * @param sequence The items of the sequence.
+     * @param length The number of items (from the start of the array) in the sequence.
+     */
+    public void write(int[] sequence, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if(!buf.hasRemaining()){
+                flush();
+            }
+            buf.putInt(sequence[i]);
+        }
+        nSequences++;
+        nItems += length;
+        if(nSequences == offsets.length){
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[nSequences] = nItems;
+    }
+
+    private void flush() throws IOException {
+        buf.flip();
+        while(buf.hasRemaining()){
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Write the offsets and header, then close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try{
+            for (int i = 0; i <= nSequences; i++) {
+                if(buf.remaining() < Long.BYTES){
+                    flush();
+                }
+                buf.putLong(offsets[i]);
+            }
+            flush();
+
+            buf.putInt(MappedSequenceDb.MAGIC);
+            buf.putInt(MappedSequenceDb.VERSION);
+            buf.putInt(nSequences);
+            buf.putInt(0);
+            buf.putLong(nItems);
+            buf.flip();
+            long position = 0;
+            while(buf.hasRemaining()){
+                position += channel.write(buf, position);
+            }
+            buf.clear();
+        }finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write a sequence database in the binary format.
+     * @param binaryFile The file to write to.
+     * @param sequences The sequences.
+     * @return True if the file was written.
+     */
+    public static boolean write(File binaryFile, int[][] sequences){
+        try(BinarySequenceWriter writer = new BinarySequenceWriter(binaryFile)){
+            for (int[] sequence : sequences) {
+                writer.write(sequence);
+            }
+            return true;
+        }catch (IOException e){
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Convert a SPMF sequences file to the binary format, one line at a time.
+     * @param spmfFile The SPMF sequences file.
+     * @param binaryFile The file to write to.
+     * @return The number of sequences written, or -1 if the conversion failed.
+     */
+    public static int convert(File spmfFile, File binaryFile){
+        try(SPMFTokenizer tokenizer = new SPMFTokenizer(spmfFile);
+            BinarySequenceWriter writer = new BinarySequenceWriter(binaryFile)){
+            int[] sequence = new int[64];
+            while(tokenizer.advance()){
+                final int len = tokenizer.getNumItems();
+                if(len > sequence.length){
+                    sequence = new int[Math.max(len, sequence.length * 2)];
+                }
+                for (int i = 0; i < len; i++) {
+                    sequence[i] = tokenizer.getItem(i);
+                }
+                writer.write(sequence, len);
+            }
+            return writer.nSequences;
+        }catch (IOException e){
+            System.err.println("Could not convert spmf file: " + e.getMessage());
+        }
+        return -1;
+    }
+
+}
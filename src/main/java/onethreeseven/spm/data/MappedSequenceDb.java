@@ -0,0 +1,230 @@
+package onethreeseven.spm.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only sequence database stored in the binary format written by {@link BinarySequenceWriter}.
+ * The items are memory-mapped, so the sequences are read straight from the file (via the OS page cache)
+ * instead of being materialised as an int[][] on the heap. Only the offsets of each sequence are kept on heap.
+ *
+ * The binary format is (big-endian):
+ * <pre>
+ * int magic ("SPMB"), int version, int nSequences, int unused, long nItems  - the 24 byte header
+ * int[nItems] items                                                         - every sequence, one after the other
+ * long[nSequences + 1] offsets                                              - sequence i is items [offsets[i], offsets[i+1])
+ * </pre>
+ * @author Luke Bermingham
+ */
+public class MappedSequenceDb implements SequenceSource, Closeable {
+
+    static final int MAGIC = 0x53504D42;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    //the items are mapped in segments because a single mapping is limited to 2GB
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_INTS = 1L << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = (int) (SEGMENT_INTS - 1);
+
+    private final FileChannel channel;
+    private final IntBuffer[] segments;
+    private final long[] offsets;
+    private final long nItems;
+
+    public MappedSequenceDb(File binaryFile) throws IOException {
+        this.channel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.READ);
+        try{
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, 0);
+            if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION){
+                throw new IOException("Not a binary sequence database: " + binaryFile);
+            }
+            final int nSequences = header.getInt(8);
+            this.nItems = header.getLong(16);
+
+            //map the items
+            final int nSegments = (int) ((nItems + SEGMENT_INTS - 1) / SEGMENT_INTS);
+            this.segments = new IntBuffer[nSegments];
+            for (int i = 0; i < nSegments; i++) {
+                long firstItem = i * SEGMENT_INTS;
+                long segmentItems = Math.min(SEGMENT_INTS, nItems - firstItem);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + firstItem * Integer.BYTES, segmentItems * Integer.BYTES).asIntBuffer();
+            }
+
+            //read the offsets
+            this.offsets = new long[nSequences + 1];
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+            long position = HEADER_BYTES + nItems * Integer.BYTES;
+            int i = 0;
+            while(i < offsets.length){
+                buf.clear();
+                buf.limit((int) Math.min(buf.capacity(), (long) (offsets.length - i) * Long.BYTES));
+                readFully(buf, position);
+                position += buf.limit();
+                buf.flip();
+                while(buf.hasRemaining()){
+                    offsets[i++] = buf.getLong();
+                }
+            }
+        }catch (IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while(buf.hasRemaining()){
+            int read = channel.read(buf, position);
+            if(read < 0){
+                throw new IOException("Unexpected end of binary sequence database.");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * @param file The file to check.
+     * @return True if the file starts with the binary sequence database header.
+     */
+    public static boolean isBinarySequenceDb(File file){
+        try(FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            if(ch.read(magic, 0) < Integer.BYTES){
+                return false;
+            }
+            return magic.getInt(0) == MAGIC;
+        }catch (IOException e){
+            return false;
+        }
+    }
+
+    /**
+     * @return The number of sequences.
+     */
+    @Override
+    public int size(){
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return The total number of items over all sequences.
+     */
+    public long getNumItems(){
+        return nItems;
+    }
+
+    /**
+     * @param seqIdx The sequence.
+     * @return The number of items in that sequence.
+     */
+    public int length(int seqIdx){
+        return (int) (offsets[seqIdx + 1] - offsets[seqIdx]);
+    }
+
+    /**
+     * Read a single item, without copying the sequence.
+     * @param seqIdx The sequence.
+     * @param itemIdx The index of the item in that sequence.
+     * @return The item.
+     */
+    public int get(int seqIdx, int itemIdx){
+        return getItem(offsets[seqIdx] + itemIdx);
+    }
+
+    private int getItem(long idx){
+        return segments[(int) (idx >>> SEGMENT_SHIFT)].get((int) idx & SEGMENT_MASK);
+    }
+
+    /**
+     * Copy a sequence into an existing array, so a caller can reuse one buffer for every sequence.
+     * @param seqIdx The sequence.
+     * @param dest Where to copy the items, must have room for {@link #length(int)} items.
+     * @return The number of items copied.
+     */
+    public int getSequence(int seqIdx, int[] dest){
+        final long start = offsets[seqIdx];
+        final int len = length(seqIdx);
+        for (int i = 0; i < len; i++) {
+            dest[i] = getItem(start + i);
+        }
+        return len;
+    }
+
+    public int[] getSequence(int seqIdx){
+        int[] seq = new int[length(seqIdx)];
+        getSequence(seqIdx, seq);
+        return seq;
+    }
+
+    /**
+     * Copy the whole database onto the heap.
+     * @return Every sequence.
+     */
+    @Override
+    public int[][] toArray(){
+        int[][] sequences = new int[size()][];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = getSequence(i);
+        }
+        return sequences;
+    }
+
+    /**
+     * Scan the sequences through one buffer, so no array is made per sequence.
+     * @param visitor Receives each sequence, the buffer is overwritten by the next one.
+     */
+    @Override
+    public void scan(SequenceVisitor visitor){
+        int[] buffer = new int[16];
+        final int nSequences = size();
+        for (int seqIdx = 0; seqIdx < nSequences; seqIdx++) {
+            final int len = length(seqIdx);
+            if(buffer.length < len){
+                buffer = new int[Math.max(len, buffer.length * 2)];
+            }
+            getSequence(seqIdx, buffer);
+            if(!visitor.visit(buffer, len)){
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Iterates the sequences in order, each sequence is copied into a new array when it is reached
+     * (see {@link #scan(SequenceVisitor)} to avoid the copies).
+     */
+    @Override
+    public Iterator<int[]> iterator() {
+        return new Iterator<>() {
+            int seqIdx = 0;
+
+            @Override
+            public boolean hasNext() {
+                return seqIdx < size();
+            }
+
+            @Override
+            public int[] next() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return getSequence(seqIdx++);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
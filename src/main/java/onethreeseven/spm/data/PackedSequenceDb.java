@@ -0,0 +1,288 @@
+package onethreeseven.spm.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only sequence database held in memory in a compressed form.
+ * An int[][] costs an array header per sequence and 4 bytes per item, here every item is bit-packed
+ * into one long[] payload using only as many bits as the range of item ids needs,
+ * and each sequence is just an offset into that payload.
+ * Optionally the items are stored as their rank in a dictionary of the distinct items,
+ * which helps when the ids are sparse (e.g. road segment ids up to 10^7 with only a few thousand used).
+ *
+ * Items are decoded as they are read, so single items can be read without decoding the sequence,
+ * and a scan only ever decodes the sequence it is on.
+ * @author Luke Bermingham
+ */
+public class PackedSequenceDb implements SequenceSource {
+
+    //the payload is split in segments because a single array is limited to 2^31 elements
+    private static final int SEGMENT_SHIFT = 24;
+    private static final int SEGMENT_WORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_WORDS - 1;
+
+    private final long[][] words;
+    private final long[] offsets;
+    private final long nItems;
+    private final int bitsPerItem;
+    private final long valueMask;
+    //an item is stored as (item - minItem), or as its index in the dictionary if there is one
+    private final int minItem;
+    private final int[] dictionary;
+
+    /**
+     * Pack the sequences, using a dictionary if it saves bits.
+     * @param source The sequences, scanned up to three times.
+     */
+    public PackedSequenceDb(SequenceSource source){
+        this(source, true);
+    }
+
+    /**
+     * @param source The sequences, scanned once to find the item range, once more to find the distinct items
+     *               (only if using a dictionary) and once to pack them. A source streamed from a SPMF file
+     *               is parsed on every scan, a mapped binary file is much cheaper to scan again.
+     * @param useDictionary If true, items are stored as their rank among the distinct items when that takes fewer bits.
+     */
+    public PackedSequenceDb(SequenceSource source, boolean useDictionary){
+
+        //first scan: count and find the range of the items
+        final long[] counts = new long[2];
+        final int[] range = new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE};
+        source.scan((items, length) -> {
+            counts[0]++;
+            counts[1] += length;
+            for (int i = 0; i < length; i++) {
+                if(items[i] < range[0]){
+                    range[0] = items[i];
+                }
+                if(items[i] > range[1]){
+                    range[1] = items[i];
+                }
+            }
+            return true;
+        });
+        if(counts[0] > Integer.MAX_VALUE - 1){
+            throw new IllegalArgumentException("Too many sequences to pack: " + counts[0]);
+        }
+        final int nSequences = (int) counts[0];
+        final long totalItems = counts[1];
+        final int min = (totalItems == 0) ? 0 : range[0];
+        final int max = (totalItems == 0) ? 0 : range[1];
+        final long itemRange = (long) max - min;
+
+        //the distinct items, the BitSet is indexed from min so it needs the range to fit an int
+        int[] dict = null;
+        if(useDictionary && itemRange < Integer.MAX_VALUE){
+            final BitSet distinct = new BitSet((int) itemRange + 1);
+            source.scan((items, length) -> {
+                for (int i = 0; i < length; i++) {
+                    distinct.set(items[i] - min);
+                }
+                return true;
+            });
+            //only worth it if the ranks take fewer bits than the items do
+            if(bitsNeeded(distinct.cardinality() - 1) < bitsNeeded(itemRange)){
+                dict = new int[distinct.cardinality()];
+                int i = 0;
+                for (int bit = distinct.nextSetBit(0); bit >= 0; bit = distinct.nextSetBit(bit + 1)) {
+                    dict[i++] = bit + min;
+                }
+            }
+        }
+
+        this.dictionary = dict;
+        this.minItem = min;
+        this.nItems = totalItems;
+        this.bitsPerItem = (dict == null) ? bitsNeeded(itemRange) : bitsNeeded(dict.length - 1);
+        this.valueMask = (1L << bitsPerItem) - 1;
+        this.offsets = new long[nSequences + 1];
+
+        long nWords = (nItems * bitsPerItem + Long.SIZE - 1) / Long.SIZE;
+        int nSegments = (int) ((nWords + SEGMENT_WORDS - 1) / SEGMENT_WORDS);
+        this.words = new long[nSegments][];
+        for (int i = 0; i < nSegments; i++) {
+            words[i] = new long[(int) Math.min(SEGMENT_WORDS, nWords - (long) i * SEGMENT_WORDS)];
+        }
+
+        //last scan: pack the items
+        final long[] idx = new long[2];
+        source.scan((items, length) -> {
+            int seqIdx = (int) idx[0];
+            if(seqIdx == nSequences || idx[1] + length > nItems){
+                throw new IllegalStateException("The sequence source changed between scans.");
+            }
+            offsets[seqIdx] = idx[1];
+            for (int i = 0; i < length; i++) {
+                long value = (dictionary == null) ? (long) items[i] - minItem : Arrays.binarySearch(dictionary, items[i]);
+                putValue(idx[1]++, value);
+            }
+            idx[0]++;
+            return true;
+        });
+        if(idx[0] != nSequences || idx[1] != nItems){
+            throw new IllegalStateException("The sequence source changed between scans.");
+        }
+        offsets[nSequences] = nItems;
+    }
+
+    /**
+     * @return The bits needed to store every value from 0 to maxValue (at least 1).
+     */
+    private static int bitsNeeded(long maxValue){
+        return Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(maxValue));
+    }
+
+    private void putValue(long itemIdx, long value){
+        final long bit = itemIdx * bitsPerItem;
+        final long wordIdx = bit >>> 6;
+        final int shift = (int) (bit & 63);
+        words[(int) (wordIdx >>> SEGMENT_SHIFT)][(int) wordIdx & SEGMENT_MASK] |= value << shift;
+        //case: the value spills over into the next word
+        if(shift + bitsPerItem > Long.SIZE){
+            final long nextIdx = wordIdx + 1;
+            words[(int) (nextIdx >>> SEGMENT_SHIFT)][(int) nextIdx & SEGMENT_MASK] |= value >>> (Long.SIZE - shift);
+        }
+    }
+
+    private int getItem(long itemIdx){
+        final long bit = itemIdx * bitsPerItem;
+        final long wordIdx = bit >>> 6;
+        final int shift = (int) (bit & 63);
+        long value = words[(int) (wordIdx >>> SEGMENT_SHIFT)][(int) wordIdx & SEGMENT_MASK] >>> shift;
+        if(shift + bitsPerItem > Long.SIZE){
+            final long nextIdx = wordIdx + 1;
+            value |= words[(int) (nextIdx >>> SEGMENT_SHIFT)][(int) nextIdx & SEGMENT_MASK] << (Long.SIZE - shift);
+        }
+        value &= valueMask;
+        return (dictionary == null) ? (int) (value + minItem) : dictionary[(int) value];
+    }
+
+    /**
+     * @return The number of sequences.
+     */
+    @Override
+    public int size(){
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return The total number of items over all sequences.
+     */
+    public long getNumItems(){
+        return nItems;
+    }
+
+    /**
+     * @return The number of bits each item is packed into.
+     */
+    public int getBitsPerItem(){
+        return bitsPerItem;
+    }
+
+    /**
+     * @return True if items are stored as their rank among the distinct items.
+     */
+    public boolean usesDictionary(){
+        return dictionary != null;
+    }
+
+    /**
+     * @return Roughly how many bytes of heap the database takes (the payload, the offsets and the dictionary).
+     */
+    public long getSizeInBytes(){
+        long bytes = (long) offsets.length * Long.BYTES;
+        for (long[] segment : words) {
+            bytes += (long) segment.length * Long.BYTES;
+        }
+        if(dictionary != null){
+            bytes += (long) dictionary.length * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * @param seqIdx The sequence.
+     * @return The number of items in that sequence.
+     */
+    public int length(int seqIdx){
+        return (int) (offsets[seqIdx + 1] - offsets[seqIdx]);
+    }
+
+    /**
+     * Read a single item, without decoding the rest of the sequence.
+     * @param seqIdx The sequence.
+     * @param itemIdx The index of the item in that sequence.
+     * @return The item.
+     */
+    public int get(int seqIdx, int itemIdx){
+        return getItem(offsets[seqIdx] + itemIdx);
+    }
+
+    /**
+     * Decode a sequence into an existing array, so a caller can reuse one buffer for every sequence.
+     * @param seqIdx The sequence.
+     * @param dest Where to decode the items, must have room for {@link #length(int)} items.
+     * @return The number of items decoded.
+     */
+    public int getSequence(int seqIdx, int[] dest){
+        final long start = offsets[seqIdx];
+        final int len = length(seqIdx);
+        for (int i = 0; i < len; i++) {
+            dest[i] = getItem(start + i);
+        }
+        return len;
+    }
+
+    public int[] getSequence(int seqIdx){
+        int[] seq = new int[length(seqIdx)];
+        getSequence(seqIdx, seq);
+        return seq;
+    }
+
+    /**
+     * Decode each sequence in turn into one buffer, which only grows to fit the longest sequence.
+     * @param visitor Receives each sequence.
+     */
+    @Override
+    public void scan(SequenceVisitor visitor) {
+        int[] buffer = new int[64];
+        for (int seqIdx = 0; seqIdx < size(); seqIdx++) {
+            final int len = length(seqIdx);
+            if(buffer.length < len){
+                buffer = new int[Math.max(len, buffer.length * 2)];
+            }
+            getSequence(seqIdx, buffer);
+            if(!visitor.visit(buffer, len)){
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Iterates the sequences in order, each sequence is decoded when it is reached.
+     */
+    @Override
+    public Iterator<int[]> iterator() {
+        return new Iterator<>() {
+            int seqIdx = 0;
+
+            @Override
+            public boolean hasNext() {
+                return seqIdx < size();
+            }
+
+            @Override
+            public int[] next() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return getSequence(seqIdx++);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,190 @@
+package onethreeseven.spm.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads a SPMF sequences file using multiple threads.
+ * The file is split into byte ranges that are aligned to the start of lines, each range is
+ * parsed concurrently by its own {@link SPMFTokenizer} and the sequences are then stitched
+ * together in their original order, so the output is the same as {@link SPMFParser#parseSequences(File)}.
+ * @author Luke Bermingham
+ */
+public class ParallelSPMFLoader {
+
+    //split the file into this many chunks per thread, so uneven chunks still balance out
+    private static final int chunksPerThread = 4;
+    //no point splitting a file into chunks smaller than this
+    private static final long defaultMinChunkBytes = 1 << 20;
+
+    private final int nThreads;
+    private final long minChunkBytes;
+
+    ParallelSPMFLoader(int nThreads, long minChunkBytes){
+        if(nThreads < 1){
+            throw new IllegalArgumentException("Number of threads must be greater than 0.");
+        }
+        this.nThreads = nThreads;
+        this.minChunkBytes = minChunkBytes;
+    }
+
+    public ParallelSPMFLoader(int nThreads){
+        this(nThreads, defaultMinChunkBytes);
+    }
+
+    public ParallelSPMFLoader(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Load the sequences of a SPMF file.
+     * @param file The SPMF sequences file.
+     * @return The sequences, in file order.
+     */
+    public int[][] load(File file){
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            long[] bounds = split(channel);
+            if(bounds.length == 2){
+                return toArray(parseChunk(channel, bounds[0], bounds[1]));
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(nThreads);
+            try{
+                List<ForkJoinTask<ArrayList<int[]>>> tasks = new ArrayList<>(bounds.length - 1);
+                for (int i = 0; i < bounds.length - 1; i++) {
+                    final long from = bounds[i];
+                    final long to = bounds[i+1];
+                    tasks.add(pool.submit(() -> parseChunk(channel, from, to)));
+                }
+                //stitch the chunks back together in order
+                ArrayList<int[]> sequences = new ArrayList<>();
+                for (ForkJoinTask<ArrayList<int[]>> task : tasks) {
+                    sequences.addAll(task.join());
+                }
+                return toArray(sequences);
+            }finally {
+                pool.shutdown();
+            }
+        }catch (IOException e){
+            System.err.println("Could not read spmf file: " + e.getMessage());
+        }
+        return new int[][]{};
+    }
+
+    private static int[][] toArray(ArrayList<int[]> sequences){
+        int[][] out = new int[sequences.size()][];
+        return sequences.toArray(out);
+    }
+
+    private static ArrayList<int[]> parseChunk(FileChannel channel, long from, long to){
+        ArrayList<int[]> sequences = new ArrayList<>();
+        SPMFTokenizer tokenizer = new SPMFTokenizer(new RangeChannel(channel, from, to));
+        try {
+            while(tokenizer.advance()){
+                sequences.add(tokenizer.getItems());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read spmf file chunk.", e);
+        }
+        return sequences;
+    }
+
+    /**
+     * Split the file into byte ranges that each start at the beginning of a line.
+     * @return The chunk boundaries, chunk i is [bounds[i], bounds[i+1]).
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        int nChunks = (int) Math.max(1, Math.min((long) nThreads * chunksPerThread, size / minChunkBytes));
+        if(nThreads == 1){
+            nChunks = 1;
+        }
+        long[] bounds = new long[nChunks + 1];
+        bounds[nChunks] = size;
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        for (int i = 1; i < nChunks; i++) {
+            long start = Math.max(bounds[i-1], size * i / nChunks);
+            bounds[i] = nextLineStart(channel, start, size, buf);
+        }
+        return bounds;
+    }
+
+    /**
+     * @return The position of the first line that starts at or after the given position.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer buf) throws IOException {
+        if(position == 0){
+            return 0;
+        }
+        //if the previous byte ends a line then position is already a line start
+        long p = position - 1;
+        while(p < size){
+            buf.clear();
+            int n = channel.read(buf, p);
+            if(n <= 0){
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if(b == '\n' || b == '\r'){
+                    return p + i + 1;
+                }
+            }
+            p += n;
+        }
+        return size;
+    }
+
+    /**
+     * Reads a byte range of a file using positional reads, so many can read the same file at once.
+     */
+    private static class RangeChannel implements ReadableByteChannel {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeChannel(FileChannel channel, long from, long to){
+            this.channel = channel;
+            this.position = from;
+            this.end = to;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            long remaining = end - position;
+            if(remaining <= 0){
+                return -1;
+            }
+            int oldLimit = dst.limit();
+            if(dst.remaining() > remaining){
+                dst.limit(dst.position() + (int) remaining);
+            }
+            int n = channel.read(dst, position);
+            dst.limit(oldLimit);
+            if(n > 0){
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            //the file channel is shared, it is closed by the loader
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package onethreeseven.spm.data;
+
+import java.io.Closeable;
+import java.io.File;
+
+/**
+ * Reads the patterns of a pattern file one at a time, see {@link #open(File)}.
+ * @author Luke Bermingham
+ */
+public interface PatternReader extends Closeable {
+
+    /**
+     * Move to the next pattern.
+     * @return False if there are no patterns left (or the file could not be read).
+     */
+    boolean advance();
+
+    int[] getPattern();
+
+    /**
+     * @return The support of the current pattern, or -1 if it has none.
+     */
+    int getSupport();
+
+    /**
+     * @return The cover of the current pattern, or -1 if it has none.
+     */
+    int getCover();
+
+    @Override
+    void close();
+
+    /**
+     * @param patternFile Either a SPMF patterns file or a binary patterns file (see {@link BinaryPatternWriter}).
+     * @return A reader for the patterns in the file.
+     */
+    static PatternReader open(File patternFile){
+        if(BinaryPatternReader.isBinaryPatternFile(patternFile)){
+            return new BinaryPatternReader(patternFile);
+        }
+        return new SPMFParserIterator(patternFile);
+    }
+
+}
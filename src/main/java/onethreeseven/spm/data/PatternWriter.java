@@ -0,0 +1,36 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.model.SequentialPattern;
+import java.io.Closeable;
+import java.io.File;
+
+/**
+ * Writes patterns to a file one at a time, see {@link #open(File, boolean)}.
+ * The patterns are only all in the file once the writer is closed.
+ * @author Luke Bermingham
+ */
+public interface PatternWriter extends Closeable {
+
+    void write(SequentialPattern pattern);
+
+    /**
+     * Write a pattern without having to wrap it in a {@link SequentialPattern}.
+     * @param sequence The items of the pattern.
+     * @param support The support of the pattern.
+     */
+    void write(int[] sequence, int support);
+
+    @Override
+    void close();
+
+    /**
+     * @param file The file to write.
+     * @param binary If true the patterns are written in the compact binary format (see {@link BinaryPatternWriter}),
+     *               which replaces the file, otherwise they are appended to it as SPMF text (see {@link SequentialPatternWriter}).
+     * @return A writer for the file.
+     */
+    static PatternWriter open(File file, boolean binary){
+        return binary ? new BinaryPatternWriter(file) : new SequentialPatternWriter(file);
+    }
+
+}
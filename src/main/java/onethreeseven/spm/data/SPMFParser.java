@@ -5,12 +5,16 @@ import onethreeseven.collections.IntArray;
 import onethreeseven.spm.model.CoveredSequentialPattern;
 import onethreeseven.spm.model.SequentialPattern;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * For parsing output from SPMF sequential patterns.
  * Can also parseSequences SPMF sequence files.
+ * Binary pattern files (see {@link BinaryPatternWriter}) are recognised and read as well.
  * @see <a href="http://www.philippe-fournier-viger.com/spmf/index.php?link=developers.php">SPMF</a>
  * for details on the file format.
  * @author Luke Bermingham
@@ -32,12 +36,42 @@ public class SPMFParser {
     }
 
     public int[][] parseSequences(File file){
-        try {
-            return parseSequences(new BufferedReader(new FileReader(file)));
-        } catch (FileNotFoundException e) {
+        if(BinaryPatternReader.isBinaryPatternFile(file)){
+            final ArrayList<int[]> sequences = new ArrayList<>();
+            try(BinaryPatternReader reader = new BinaryPatternReader(file)){
+                while(reader.advance()){
+                    sequences.add(reader.getPattern());
+                }
+            }
+            return sequences.toArray(new int[sequences.size()][]);
+        }
+        //byte-level parsing only supports single character delimiters
+        if(delimiter.length() != 1){
+            try {
+                return parseSequences(new BufferedReader(new FileReader(file)));
+            } catch (FileNotFoundException e) {
+                System.err.println("Could not find spmf output file to parseSequences: " + e.getMessage());
+            }
+            return new int[][]{};
+        }
+
+        final ArrayList<int[]> sequences = new ArrayList<>();
+        try(SPMFTokenizer tokenizer = openTokenizer(file)){
+            while(tokenizer.advance()){
+                sequences.add(tokenizer.getItems());
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
             System.err.println("Could not find spmf output file to parseSequences: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Could not read spmf file: " + e.getMessage());
         }
-        return new int[][]{};
+        int[][] out = new int[sequences.size()][];
+        out = sequences.toArray(out);
+        return out;
+    }
+
+    private SPMFTokenizer openTokenizer(File file) throws IOException {
+        return new SPMFTokenizer(FileChannel.open(file.toPath(), StandardOpenOption.READ), delimiter.charAt(0));
     }
 
     public int[][] parseSequences(BufferedReader br){
@@ -56,23 +90,50 @@ public class SPMFParser {
 
     public List<SequentialPattern> parsePatterns(File file){
         ArrayList<SequentialPattern> patterns = new ArrayList<>();
-        try {
-            FileReader fr = new FileReader(file);
-            BufferedReader br = new BufferedReader(fr);
-            parseImpl(br, line -> {
-                SequentialPattern pattern =
-                        parsePattern(line, SPMFParser.this.delimiter);
-                patterns.add(pattern);
-            });
-            fr.close();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        if(BinaryPatternReader.isBinaryPatternFile(file)){
+            try(BinaryPatternReader reader = new BinaryPatternReader(file)){
+                while(reader.advance()){
+                    patterns.add(toPattern(reader.getPattern(), reader.getSupport(), reader.getCover()));
+                }
+            }
+            return patterns;
+        }
+        //byte-level parsing only supports single character delimiters
+        if(delimiter.length() != 1){
+            try {
+                FileReader fr = new FileReader(file);
+                BufferedReader br = new BufferedReader(fr);
+                parseImpl(br, line -> {
+                    SequentialPattern pattern =
+                            parsePattern(line, SPMFParser.this.delimiter);
+                    patterns.add(pattern);
+                });
+                fr.close();
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return patterns;
+        }
+
+        try(SPMFTokenizer tokenizer = openTokenizer(file)){
+            while(tokenizer.advance()){
+                patterns.add(toPattern(tokenizer.getItems(), tokenizer.getSupport(), tokenizer.getCover()));
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
         return patterns;
     }
 
+    private static SequentialPattern toPattern(int[] sequence, int support, int cover){
+        if(cover == -1){
+            return new SequentialPattern(sequence, support);
+        }
+        return new CoveredSequentialPattern(sequence, support, cover);
+    }
+
     private void parseImpl(BufferedReader br, PatternProcessor processor){
 
         String line;
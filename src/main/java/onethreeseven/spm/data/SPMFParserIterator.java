@@ -8,11 +8,9 @@ import java.io.*;
  * for details on the file format.
  * @author Luke Bermingham
  */
-public class SPMFParserIterator {
+public class SPMFParserIterator implements PatternReader {
 
-    private static final String delimiter = " ";
-
-    private BufferedReader reader;
+    private SPMFTokenizer tokenizer;
 
     //current line fields
     private int[] curPattern;
@@ -21,21 +19,23 @@ public class SPMFParserIterator {
 
     public SPMFParserIterator(File patternFile) {
         try{
-            this.reader = new BufferedReader(new FileReader(patternFile));
-        }catch (FileNotFoundException e){
+            this.tokenizer = new SPMFTokenizer(patternFile);
+        }catch (IOException e){
             System.err.println("Could not find spmf output file to parseSequences: " + e.getMessage());
         }
 
     }
 
+    @Override
     public boolean advance(){
-        if(reader == null){
+        if(tokenizer == null){
             return false;
         }
         try {
-            if(!reader.ready()){return false;}
-            String line = reader.readLine();
-            parseLine(line);
+            if(!tokenizer.advance()){return false;}
+            this.curPattern = tokenizer.getItems();
+            this.curCover = tokenizer.getCover();
+            this.curSup = tokenizer.getSupport();
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -43,55 +43,35 @@ public class SPMFParserIterator {
         return false;
     }
 
+    @Override
     public int[] getPattern(){
         return curPattern;
     }
 
+    /**
+     * @return The support of the current pattern, or -1 if it has none.
+     */
+    @Override
     public int getSupport(){
         return curSup;
     }
 
+    /**
+     * @return The cover of the current pattern, or -1 if it has none.
+     */
+    @Override
     public int getCover(){
         return curCover;
     }
 
+    @Override
     public void close(){
-        if(reader == null){return;}
+        if(tokenizer == null){return;}
         try {
-            this.reader.close();
+            this.tokenizer.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void parseLine(String line){
-
-        String[] parts = line.split("#");
-        if(parts.length == 3){
-            //35244 35246 32297 #COVER:12 #SUP:6
-            String patternPart = parts[0];
-            this.curPattern = SPMFParser.parseSequence(patternPart, delimiter);
-
-            String coverPart = parts[1];
-            this.curCover = Integer.parseInt(coverPart.split(":")[1].trim());
-
-            String supPart = parts[2];
-            this.curSup = Integer.parseInt(supPart.split(":")[1].trim());
-        }
-        else if(parts.length == 2){
-            //35244 35246 32297 #SUP:6
-            String patternPart = parts[0];
-            this.curPattern = SPMFParser.parseSequence(patternPart, delimiter);
-
-            String supPart = parts[1];
-            this.curSup = Integer.parseInt(supPart.split(":")[1].trim());
-        }
-        //only have the pattern part
-        else if(parts.length == 1){
-            String patternPart = parts[0];
-            this.curPattern = SPMFParser.parseSequence(patternPart, delimiter);
-        }
-    }
-
-
 }
@@ -0,0 +1,136 @@
+package onethreeseven.spm.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link SequenceSource} that streams the sequences from a SPMF file on every scan,
+ * so only the sequence currently being processed is in memory.
+ * @author Luke Bermingham
+ */
+public class SPMFSequenceSource implements SequenceSource {
+
+    private final File spmfFile;
+    private int size = -1;
+
+    public SPMFSequenceSource(File spmfFile){
+        this.spmfFile = spmfFile;
+    }
+
+    /**
+     * @return The number of sequences, the first call counts them with a scan of the file.
+     */
+    @Override
+    public int size() {
+        if(size == -1){
+            int count = 0;
+            try(SPMFTokenizer tokenizer = new SPMFTokenizer(spmfFile)){
+                while(tokenizer.advance()){
+                    count++;
+                }
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    /**
+     * Scan the file, handing over each sequence in the tokenizer's own buffer (no array per sequence).
+     * The file is closed when the scan ends, including when the visitor stops it early.
+     * @param visitor Receives each sequence.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    @Override
+    public void scan(SequenceVisitor visitor){
+        try(SPMFTokenizer tokenizer = new SPMFTokenizer(spmfFile)){
+            while(tokenizer.advance()){
+                if(!visitor.visit(tokenizer.getItemsBuffer(), tokenizer.getNumItems())){
+                    return;
+                }
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return A new scan of the file, the file is closed once the last sequence is reached
+     * or when the iterator is closed. A scan that may stop early should close it, or use {@link #scan(SequenceVisitor)}.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    @Override
+    public SequenceIterator iterator() {
+        try {
+            return new SequenceIterator(new SPMFTokenizer(spmfFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Iterates the sequences of the file, each in a new array.
+     */
+    public static class SequenceIterator implements Iterator<int[]>, Closeable {
+
+        private final SPMFTokenizer tokenizer;
+        private boolean closed = false;
+        private boolean hasNext;
+
+        private SequenceIterator(SPMFTokenizer tokenizer){
+            this.tokenizer = tokenizer;
+            this.hasNext = advance();
+        }
+
+        private boolean advance(){
+            try {
+                if(tokenizer.advance()){
+                    return true;
+                }
+                close();
+                return false;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public int[] next() {
+            if(!hasNext){
+                throw new NoSuchElementException();
+            }
+            int[] sequence = tokenizer.getItems();
+            hasNext = advance();
+            return sequence;
+        }
+
+        /**
+         * Close the file, no more sequences are given after this.
+         */
+        @Override
+        public void close() {
+            if(closed){
+                return;
+            }
+            closed = true;
+            hasNext = false;
+            try {
+                tokenizer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+package onethreeseven.spm.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the SPMF format one line at a time straight from the bytes of the file.
+ * Integers are parsed in place and the -1/-2 separators and #SUP:/#COVER: tags are recognised
+ * without creating any Strings, so reading a line allocates nothing.
+ * Lines are split on whitespace and on the (single character) delimiter.
+ * @see <a href="http://www.philippe-fournier-viger.com/spmf/index.php?link=developers.php">SPMF</a>
+ * for details on the file format.
+ * @author Luke Bermingham
+ */
+public class SPMFTokenizer implements Closeable {
+
+    private static final byte[] SUP_TAG = new byte[]{'S', 'U', 'P'};
+    private static final byte[] COVER_TAG = new byte[]{'C', 'O', 'V', 'E', 'R'};
+    private static final int EOF = -1;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private final byte delimiter;
+    private int pos = 0;
+    private int limit = 0;
+    private long bytesRead = 0;
+    //true if the last line ended in '\r', so a following '\n' is part of the same line ending
+    private boolean skipLineFeed = false;
+
+    //current line fields
+    private int[] items = new int[64];
+    private int nItems = 0;
+    private int support = -1;
+    private int cover = -1;
+
+    public SPMFTokenizer(ReadableByteChannel channel, char delimiter){
+        this.channel = channel;
+        this.bytes = new byte[1 << 16];
+        this.buffer = ByteBuffer.wrap(bytes);
+        this.delimiter = (byte) delimiter;
+    }
+
+    public SPMFTokenizer(ReadableByteChannel channel){
+        this(channel, ' ');
+    }
+
+    public SPMFTokenizer(File file) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+    }
+
+    /**
+     * Read the next non-empty line.
+     * @return False if the end of the input was reached.
+     * @throws IOException If the input could not be read.
+     * @throws NumberFormatException If the line has a token that is not an integer.
+     */
+    public boolean advance() throws IOException {
+        while(true){
+            int c = read();
+            if(c == EOF){
+                return false;
+            }
+            if(skipLineFeed){
+                skipLineFeed = false;
+                if(c == '\n'){
+                    continue;
+                }
+            }
+            if(c == '\n'){
+                continue;
+            }
+            if(c == '\r'){
+                skipLineFeed = true;
+                continue;
+            }
+            parseLine(c);
+            return true;
+        }
+    }
+
+    /**
+     * @return The number of items on the current line (excluding the -1/-2 separators).
+     */
+    public int getNumItems() {
+        return nItems;
+    }
+
+    public int getItem(int idx){
+        return items[idx];
+    }
+
+    /**
+     * @return A copy of the items on the current line.
+     */
+    public int[] getItems(){
+        return Arrays.copyOf(items, nItems);
+    }
+
+    /**
+     * @return The array holding the items of the current line (not a copy), only the first
+     * {@link #getNumItems()} are the line's and they are overwritten by the next {@link #advance()}.
+     */
+    int[] getItemsBuffer(){
+        return items;
+    }
+
+    /**
+     * @return The value of the #SUP: tag on the current line, or -1 if it has none.
+     */
+    public int getSupport() {
+        return support;
+    }
+
+    /**
+     * @return The value of the #COVER: tag on the current line, or -1 if it has none.
+     */
+    public int getCover() {
+        return cover;
+    }
+
+    /**
+     * @return The number of bytes read from the input so far.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int read() throws IOException {
+        if(pos == limit){
+            buffer.clear();
+            int n;
+            do{
+                n = channel.read(buffer);
+            }while(n == 0);
+            if(n < 0){
+                return EOF;
+            }
+            pos = 0;
+            limit = n;
+            bytesRead += n;
+        }
+        return bytes[pos++] & 0xFF;
+    }
+
+    private boolean isEndOfLine(int c){
+        if(c == '\r'){
+            skipLineFeed = true;
+            return true;
+        }
+        return c == '\n' || c == EOF;
+    }
+
+    private boolean isSeparator(int c){
+        return c == ' ' || c == '\t' || c == delimiter;
+    }
+
+    private void parseLine(int c) throws IOException {
+        nItems = 0;
+        support = -1;
+        cover = -1;
+        while(!isEndOfLine(c)){
+            if(isSeparator(c)){
+                c = read();
+            }
+            //everything after the first tag is tags
+            else if(c == '#'){
+                c = parseTag();
+            }
+            else{
+                c = parseItem(c);
+            }
+        }
+    }
+
+    /**
+     * Parse an integer token, skipping the -1 and -2 separators.
+     * @return The character after the token.
+     */
+    private int parseItem(int c) throws IOException {
+        boolean negative = c == '-';
+        if(negative){
+            c = read();
+        }
+        long value = 0;
+        int nDigits = 0;
+        while(c >= '0' && c <= '9'){
+            value = value * 10 + (c - '0');
+            if(value > (long) Integer.MAX_VALUE + 1){
+                throw new NumberFormatException("Integer out of range in spmf file.");
+            }
+            nDigits++;
+            c = read();
+        }
+        if(nDigits == 0 || !(isSeparator(c) || c == '#' || c == '\n' || c == '\r' || c == EOF)){
+            throw new NumberFormatException("Unexpected character in spmf file: " + (char) c);
+        }
+        if(negative){
+            value = -value;
+        }
+        if(value > Integer.MAX_VALUE){
+            throw new NumberFormatException("Integer out of range in spmf file.");
+        }
+        if(value != -1 && value != -2){
+            if(nItems == items.length){
+                items = Arrays.copyOf(items, nItems * 2);
+            }
+            items[nItems++] = (int) value;
+        }
+        return c;
+    }
+
+    /**
+     * Parse a tag like "#SUP: 24", unknown tags are skipped.
+     * @return The character after the tag.
+     */
+    private int parseTag() throws IOException {
+        int c = read();
+        //match the tag name
+        int nameLength = 0;
+        boolean isSup = true;
+        boolean isCover = true;
+        while(c != ':' && c != '#' && !isSeparator(c) && c != '\n' && c != '\r' && c != EOF){
+            isSup &= nameLength < SUP_TAG.length && SUP_TAG[nameLength] == c;
+            isCover &= nameLength < COVER_TAG.length && COVER_TAG[nameLength] == c;
+            nameLength++;
+            c = read();
+        }
+        isSup &= nameLength == SUP_TAG.length;
+        isCover &= nameLength == COVER_TAG.length;
+
+        if(c == ':' && (isSup || isCover)){
+            c = read();
+            while(isSeparator(c)){
+                c = read();
+            }
+            long value = 0;
+            int nDigits = 0;
+            while(c >= '0' && c <= '9' && value <= Integer.MAX_VALUE){
+                value = value * 10 + (c - '0');
+                nDigits++;
+                c = read();
+            }
+            if(nDigits > 0 && value <= Integer.MAX_VALUE){
+                if(isSup){
+                    support = (int) value;
+                }else{
+                    cover = (int) value;
+                }
+            }
+        }
+        //skip the rest of the tag
+        while(c != '#' && c != '\n' && c != '\r' && c != EOF){
+            c = read();
+        }
+        return c;
+    }
+
+}
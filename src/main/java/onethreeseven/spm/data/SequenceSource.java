@@ -0,0 +1,54 @@
+package onethreeseven.spm.data;
+
+/**
+ * A sequence database that can be scanned any number of times.
+ * Each call to {@link #iterator()} starts a new scan over every sequence, in the same order each time,
+ * so an implementation does not have to hold the whole database in memory.
+ * @author Luke Bermingham
+ */
+public interface SequenceSource extends Iterable<int[]> {
+
+    /**
+     * @return The number of sequences.
+     */
+    int size();
+
+    /**
+     * Receives each sequence of a scan, see {@link #scan(SequenceVisitor)}.
+     */
+    interface SequenceVisitor {
+        /**
+         * @param items The array holding the sequence, only valid until this returns (it may be reused for the next sequence).
+         * @param length The number of items in the sequence, from the start of the array.
+         * @return False to stop the scan.
+         */
+        boolean visit(int[] items, int length);
+    }
+
+    /**
+     * Scan every sequence in order, without keeping any of them, so an implementation
+     * can hand each sequence over in a reused buffer rather than a new array.
+     * @param visitor Receives each sequence.
+     */
+    default void scan(SequenceVisitor visitor){
+        for (int[] sequence : this) {
+            if(!visitor.visit(sequence, sequence.length)){
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copy every sequence onto the heap.
+     * @return The sequences, in scan order.
+     */
+    default int[][] toArray(){
+        int[][] sequences = new int[size()][];
+        int i = 0;
+        for (int[] sequence : this) {
+            sequences[i++] = sequence;
+        }
+        return sequences;
+    }
+
+}
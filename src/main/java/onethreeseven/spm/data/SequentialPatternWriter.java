@@ -1,56 +1,200 @@
 package onethreeseven.spm.data;
 
+import onethreeseven.spm.model.CoveredSequentialPattern;
 import onethreeseven.spm.model.SequentialPattern;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 
 /**
- * Writes {@link SequentialPattern} to file.
+ * Writes {@link SequentialPattern} to file (appending to it), one pattern per line,
+ * in the same format as {@link SequentialPattern#toString()}.
+ * Patterns are formatted straight into a reusable byte buffer, with no Strings made along the way,
+ * and the buffer only goes to the file when it is full, on {@link #flush()} or on {@link #close()}.
+ * So the patterns are not all in the file until the writer is closed.
  * @author Luke Bermingham
  */
-public class SequentialPatternWriter {
+public class SequentialPatternWriter implements PatternWriter {
 
-    private BufferedWriter bw;
-    private FileWriter fw;
+    private static final byte[] supportSuffix = " #SUP:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] coverSuffix = " #COVER:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] newLine = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    //the longest an int can be written as, i.e. -2147483648
+    private static final int maxIntChars = 11;
+
+    private FileChannel channel;
+    private final byte[] bytes = new byte[1 << 20];
+    private final ByteBuffer buf = ByteBuffer.wrap(bytes);
+    private int pos = 0;
 
     public SequentialPatternWriter(File file){
         try {
-            this.fw = new FileWriter(file, true);
-            this.bw = new BufferedWriter(fw);
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    @Override
     public void write(SequentialPattern pattern){
-        if(bw == null){
-            System.err.println("Cannot write because buffered writer is null, try making a new class.");
+        //case: a pattern type we don't know the format of
+        if(pattern.getClass() != SequentialPattern.class && pattern.getClass() != CoveredSequentialPattern.class){
+            writeLine(pattern.toString());
+            return;
+        }
+        if(!canWrite()){
+            return;
+        }
+        int[] sequence = pattern.getSequence();
+        putItems(sequence, sequence.length);
+        putBytes(supportSuffix);
+        putInt(pattern.getSupport());
+        if(pattern instanceof CoveredSequentialPattern){
+            putBytes(coverSuffix);
+            putInt(((CoveredSequentialPattern) pattern).getCover());
+        }
+        putBytes(newLine);
+    }
+
+    /**
+     * Write a pattern without having to wrap it in a {@link SequentialPattern}.
+     * @param sequence The array holding the items of the pattern.
+     * @param length The number of items (from the start of the array) in the pattern.
+     * @param support The support of the pattern.
+     */
+    public void write(int[] sequence, int length, int support){
+        if(!canWrite()){
+            return;
+        }
+        putItems(sequence, length);
+        putBytes(supportSuffix);
+        putInt(support);
+        putBytes(newLine);
+    }
+
+    @Override
+    public void write(int[] sequence, int support){
+        write(sequence, sequence.length, support);
+    }
+
+    private void writeLine(String line){
+        if(!canWrite()){
+            return;
+        }
+        byte[] lineBytes = line.getBytes(StandardCharsets.US_ASCII);
+        if(bytes.length - pos < lineBytes.length + newLine.length){
+            flushBuffer();
+        }
+        //case: longer than the whole buffer, so write it straight through
+        if(bytes.length < lineBytes.length + newLine.length){
+            writeFully(ByteBuffer.wrap(lineBytes));
+            writeFully(ByteBuffer.wrap(newLine));
+            return;
+        }
+        putBytes(lineBytes);
+        putBytes(newLine);
+    }
+
+    /**
+     * Put the items, each followed by a space, flushing whenever the next one might not fit.
+     * Afterwards there is always room for the rest of the line.
+     */
+    private void putItems(int[] sequence, int length){
+        for (int i = 0; i < length; i++) {
+            if(bytes.length - pos < maxIntChars + 1){
+                flushBuffer();
+            }
+            putInt(sequence[i]);
+            bytes[pos++] = ' ';
+        }
+        if(bytes.length - pos < supportSuffix.length + coverSuffix.length + 2 * maxIntChars + newLine.length){
+            flushBuffer();
+        }
+    }
+
+    private void putBytes(byte[] b){
+        System.arraycopy(b, 0, bytes, pos, b.length);
+        pos += b.length;
+    }
+
+    /**
+     * Format an int as decimal digits straight into the buffer.
+     */
+    private void putInt(int value){
+        if(value == Integer.MIN_VALUE){
+            for (char c : Integer.toString(value).toCharArray()) {
+                bytes[pos++] = (byte) c;
+            }
+            return;
         }
+        if(value < 0){
+            bytes[pos++] = '-';
+            value = -value;
+        }
+        //write the digits backwards from the end of the number
+        int nDigits = 1;
+        for (int v = value / 10; v > 0; v /= 10) {
+            nDigits++;
+        }
+        int i = pos + nDigits;
+        pos = i;
+        do{
+            bytes[--i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }while(value > 0);
+    }
+
+    /**
+     * @return False if the file could not be written to.
+     */
+    private boolean canWrite(){
+        if(channel == null){
+            System.err.println("Cannot write because the file channel is null, try making a new class.");
+            return false;
+        }
+        return true;
+    }
+
+    private void flushBuffer(){
+        buf.clear();
+        buf.limit(pos);
+        writeFully(buf);
+        pos = 0;
+    }
+
+    private void writeFully(ByteBuffer toWrite){
         try {
-            bw.write(pattern.toString());
-            bw.newLine();
-            bw.flush();
+            while(toWrite.hasRemaining()){
+                channel.write(toWrite);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public void close(){
-        if(bw != null){
-            try {
-                bw.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    /**
+     * Write the buffered patterns to the file.
+     */
+    public void flush(){
+        if(channel != null && pos > 0){
+            flushBuffer();
         }
-        if(fw != null){
+    }
+
+    @Override
+    public void close(){
+        if(channel != null){
+            flush();
             try {
-                fw.close();
+                channel.close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            channel = null;
         }
     }
 }
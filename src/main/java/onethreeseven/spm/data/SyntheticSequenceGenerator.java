@@ -0,0 +1,326 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.model.SequentialPattern;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Generates synthetic sequence databases one sequence at a time, so databases far larger than memory
+ * can be streamed straight to disk (see {@link #write(File)} and {@link #writeBinary(File)}) or mined directly,
+ * as this is also a {@link SequenceSource}.
+ *
+ * Like {@link ContiguousSPMFGenerator} each sequence is made by joining random background patterns, however,
+ * here the item frequencies and the background pattern frequencies can follow a Zipf distribution
+ * (item 1 and background pattern 0 being the most frequent), sequence lengths can vary, and patterns can be
+ * planted with a known support for checking miner output against.
+ * The same seed and settings always generate the same sequences.
+ * @author Luke Bermingham
+ */
+public class SyntheticSequenceGenerator implements SequenceSource {
+
+    private int nSequences = 100;
+    private int minSequenceLength = 100;
+    private int maxSequenceLength = 100;
+    private int nDistinctItems = 20;
+    private int nBackgroundPatterns = 50;
+    private int maxBackgroundPatternLength = 25;
+    private double itemSkew = 0;
+    private double patternSkew = 0;
+    private long seed = 137;
+
+    private final List<int[]> plantedPatterns = new ArrayList<>();
+    private final List<Integer> plantedSupports = new ArrayList<>();
+
+    /**
+     * @param nSequences The number of sequences, it cannot be less than the support of a pattern already planted.
+     */
+    public void setnSequences(int nSequences) {
+        for (int support : plantedSupports) {
+            if(support > nSequences){
+                throw new IllegalArgumentException("Cannot have fewer sequences than a planted pattern's support, " +
+                        "which is " + support + ".");
+            }
+        }
+        this.nSequences = nSequences;
+    }
+
+    /**
+     * Each sequence length is drawn uniformly from the given range (inclusive).
+     * @param minSequenceLength The minimum sequence length.
+     * @param maxSequenceLength The maximum sequence length.
+     */
+    public void setSequenceLength(int minSequenceLength, int maxSequenceLength) {
+        if(minSequenceLength < 1 || maxSequenceLength < minSequenceLength){
+            throw new IllegalArgumentException("Sequence lengths must be at least 1 and min <= max.");
+        }
+        this.minSequenceLength = minSequenceLength;
+        this.maxSequenceLength = maxSequenceLength;
+    }
+
+    public void setSequenceLength(int sequenceLength) {
+        setSequenceLength(sequenceLength, sequenceLength);
+    }
+
+    /**
+     * @param nDistinctItems The number of distinct background items to draw from. The background patterns
+     *                       only hold nBackgroundPatterns * maxBackgroundPatternLength items,
+     *                       so no more distinct items than that appear (see {@link #setBackgroundPatterns(int, int)}).
+     */
+    public void setnDistinctItems(int nDistinctItems) {
+        if(nDistinctItems < 1){
+            throw new IllegalArgumentException("There must be at least 1 distinct item, was passed: " + nDistinctItems);
+        }
+        this.nDistinctItems = nDistinctItems;
+    }
+
+    /**
+     * @param nBackgroundPatterns The number of random patterns the sequences are built from.
+     * @param maxBackgroundPatternLength The maximum length of each of those patterns.
+     */
+    public void setBackgroundPatterns(int nBackgroundPatterns, int maxBackgroundPatternLength) {
+        if(nBackgroundPatterns < 1 || maxBackgroundPatternLength < 1){
+            throw new IllegalArgumentException("There must be at least 1 background pattern and its length must be at least 1.");
+        }
+        this.nBackgroundPatterns = nBackgroundPatterns;
+        this.maxBackgroundPatternLength = maxBackgroundPatternLength;
+    }
+
+    /**
+     * @param itemSkew The Zipf exponent of the item frequencies, 0 means uniform.
+     */
+    public void setItemSkew(double itemSkew) {
+        this.itemSkew = itemSkew;
+    }
+
+    /**
+     * @param patternSkew The Zipf exponent of the background pattern frequencies, 0 means uniform.
+     */
+    public void setPatternSkew(double patternSkew) {
+        this.patternSkew = patternSkew;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Plant a pattern contiguously into exactly the given number of sequences (at a random position,
+     * never overlapping another planted pattern). The background may also contain the pattern by chance,
+     * so its support is at least the planted support, use items outside [1, nDistinctItems]
+     * to make the planted support exact.
+     * @param pattern The pattern to plant.
+     * @param support The number of sequences to plant it in.
+     */
+    public void plantPattern(int[] pattern, int support) {
+        if(pattern.length == 0){
+            throw new IllegalArgumentException("Cannot plant an empty pattern.");
+        }
+        if(support < 0 || support > nSequences){
+            throw new IllegalArgumentException("Planted support must be between 0 and the number of sequences.");
+        }
+        plantedPatterns.add(pattern.clone());
+        plantedSupports.add(support);
+    }
+
+    /**
+     * @return The planted patterns and the number of sequences each was planted in (the ground truth).
+     */
+    public List<SequentialPattern> getPlantedPatterns() {
+        List<SequentialPattern> out = new ArrayList<>(plantedPatterns.size());
+        for (int i = 0; i < plantedPatterns.size(); i++) {
+            out.add(new SequentialPattern(plantedPatterns.get(i).clone(), plantedSupports.get(i)));
+        }
+        return out;
+    }
+
+    @Override
+    public int size() {
+        return nSequences;
+    }
+
+    /**
+     * @return A new iterator that generates the sequences from the start (so every iterator gives the same sequences).
+     */
+    @Override
+    public Iterator<int[]> iterator() {
+        return new SequenceIterator();
+    }
+
+    /**
+     * Stream the generated sequences into an SPMF file.
+     * @param spmfFile The file to write.
+     * @return The total number of items written, or -1 if writing failed.
+     */
+    public long write(File spmfFile){
+        long nItems = 0;
+        try(Writer w = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(spmfFile), StandardCharsets.US_ASCII), 1 << 16)){
+            for (int[] sequence : this) {
+                for (int item : sequence) {
+                    w.write(Integer.toString(item));
+                    w.write(" -1 ");
+                }
+                w.write("-2\n");
+                nItems += sequence.length;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+        return nItems;
+    }
+
+    /**
+     * Stream the generated sequences into a binary sequence database (see {@link MappedSequenceDb}).
+     * @param binaryFile The file to write.
+     * @return The total number of items written, or -1 if writing failed.
+     */
+    public long writeBinary(File binaryFile){
+        long nItems = 0;
+        try(BinarySequenceWriter writer = new BinarySequenceWriter(binaryFile)){
+            for (int[] sequence : this) {
+                writer.write(sequence);
+                nItems += sequence.length;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+        return nItems;
+    }
+
+    private class SequenceIterator implements Iterator<int[]> {
+
+        private final Random rand = new Random(seed);
+        private final ZipfSampler itemSampler = new ZipfSampler(nDistinctItems, itemSkew);
+        private final ZipfSampler patternSampler = new ZipfSampler(nBackgroundPatterns, patternSkew);
+        private final int[][] backgroundPatterns = new int[nBackgroundPatterns][];
+        //how many more sequences each planted pattern has to go into
+        private final int[] plantsLeft = new int[plantedPatterns.size()];
+        private final int[] plantedHere = new int[plantedPatterns.size()];
+        private final int[] plantOffsets = new int[plantedPatterns.size()];
+        private int[] background = new int[maxSequenceLength];
+        private int seqIdx = 0;
+
+        SequenceIterator(){
+            for (int i = 0; i < backgroundPatterns.length; i++) {
+                int[] pattern = new int[1 + rand.nextInt(Math.max(1, maxBackgroundPatternLength))];
+                for (int j = 0; j < pattern.length; j++) {
+                    pattern[j] = 1 + itemSampler.sample(rand);
+                }
+                backgroundPatterns[i] = pattern;
+            }
+            for (int i = 0; i < plantsLeft.length; i++) {
+                plantsLeft[i] = plantedSupports.get(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return seqIdx < nSequences;
+        }
+
+        @Override
+        public int[] next() {
+            if(!hasNext()){
+                throw new NoSuchElementException();
+            }
+            final int length = minSequenceLength + rand.nextInt(maxSequenceLength - minSequenceLength + 1);
+
+            //choose the planted patterns for this sequence, selection sampling means each pattern
+            //ends up in exactly its support many sequences (chosen uniformly)
+            final int sequencesLeft = nSequences - seqIdx;
+            int nPlanted = 0;
+            int plantedLength = 0;
+            for (int p = 0; p < plantsLeft.length; p++) {
+                if(plantsLeft[p] > 0 && rand.nextInt(sequencesLeft) < plantsLeft[p]){
+                    plantsLeft[p]--;
+                    plantedHere[nPlanted++] = p;
+                    plantedLength += plantedPatterns.get(p).length;
+                }
+            }
+            seqIdx++;
+
+            //fill the rest with background patterns
+            final int backgroundLength = Math.max(0, length - plantedLength);
+            if(background.length < backgroundLength){
+                background = new int[backgroundLength];
+            }
+            int filled = 0;
+            while(filled < backgroundLength){
+                int[] pattern = backgroundPatterns[patternSampler.sample(rand)];
+                int n = Math.min(pattern.length, backgroundLength - filled);
+                System.arraycopy(pattern, 0, background, filled, n);
+                filled += n;
+            }
+            if(nPlanted == 0){
+                return Arrays.copyOf(background, backgroundLength);
+            }
+
+            //insert the planted patterns between background items
+            for (int i = 0; i < nPlanted; i++) {
+                plantOffsets[i] = rand.nextInt(backgroundLength + 1);
+            }
+            Arrays.sort(plantOffsets, 0, nPlanted);
+            int[] sequence = new int[backgroundLength + plantedLength];
+            int from = 0;
+            int to = 0;
+            for (int i = 0; i < nPlanted; i++) {
+                int n = plantOffsets[i] - from;
+                System.arraycopy(background, from, sequence, to, n);
+                from += n;
+                to += n;
+                int[] planted = plantedPatterns.get(plantedHere[i]);
+                System.arraycopy(planted, 0, sequence, to, planted.length);
+                to += planted.length;
+            }
+            System.arraycopy(background, from, sequence, to, backgroundLength - from);
+            return sequence;
+        }
+    }
+
+    /**
+     * Samples ranks in [0, n) where rank k has probability proportional to 1/(k+1)^s.
+     */
+    private static class ZipfSampler {
+
+        private final int n;
+        //cumulative probabilities, null when the distribution is uniform
+        private final double[] cdf;
+
+        ZipfSampler(int n, double s){
+            this.n = n;
+            if(s == 0){
+                this.cdf = null;
+                return;
+            }
+            this.cdf = new double[n];
+            double total = 0;
+            for (int k = 0; k < n; k++) {
+                total += 1.0 / Math.pow(k + 1, s);
+                cdf[k] = total;
+            }
+            for (int k = 0; k < n; k++) {
+                cdf[k] /= total;
+            }
+        }
+
+        int sample(Random rand){
+            if(cdf == null){
+                return rand.nextInt(n);
+            }
+            int idx = Arrays.binarySearch(cdf, rand.nextDouble());
+            //not found gives -(insertion point) - 1, the insertion point is the sampled rank
+            idx = (idx < 0) ? -idx - 1 : idx;
+            return Math.min(idx, n - 1);
+        }
+    }
+
+}
@@ -112,9 +112,9 @@ public class MinePatternsContiguous {
             File allPatternsFile = makeOutFile(SPClosure.ALL, minSupAbs, maxRedundancy);
             if(allPatternsFile.exists()){
                 //do compression
-                int allItemsSubset = stats.getTotalItems();
+                long allItemsSubset = stats.getTotalItems();
                 stats.calculate(new SPMFParser().parseSequences(allPatternsFile));
-                int allItems = stats.getTotalItems();
+                long allItems = stats.getTotalItems();
                 double compression = 1 - ((double)allItemsSubset)/allItems;
                 System.out.print(compression + ", ");
                 //do lossiness
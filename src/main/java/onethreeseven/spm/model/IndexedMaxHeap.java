@@ -0,0 +1,182 @@
+package onethreeseven.spm.model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary max-heap of int ids (in the range [0, capacity)) keyed by an int.
+ * Each id knows its position in the heap, so any id can be removed or re-keyed in O(log n)
+ * instead of having to search for it. Ties between equal keys go to the smallest id.
+ * @author Luke Bermingham
+ */
+public class IndexedMaxHeap {
+
+    //the ids in heap order
+    private final int[] heap;
+    //the position of each id in the heap, or -1 if it is not in the heap
+    private final int[] positions;
+    private final int[] keys;
+    private int size = 0;
+
+    public IndexedMaxHeap(int capacity){
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public boolean contains(int id){
+        return positions[id] != -1;
+    }
+
+    /**
+     * @param id An id in the heap.
+     * @return The key of that id.
+     */
+    public int getKey(int id){
+        if(!contains(id)){
+            throw new NoSuchElementException("Id is not in the heap: " + id);
+        }
+        return keys[id];
+    }
+
+    /**
+     * Add an id, or re-key it if it is already in the heap.
+     * @param id The id.
+     * @param key The key of the id.
+     */
+    public void add(int id, int key){
+        if(contains(id)){
+            update(id, key);
+            return;
+        }
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    /**
+     * Change the key of an id in the heap.
+     * @param id The id.
+     * @param key The new key.
+     */
+    public void update(int id, int key){
+        int pos = positions[id];
+        if(pos == -1){
+            throw new NoSuchElementException("Id is not in the heap: " + id);
+        }
+        int oldKey = keys[id];
+        keys[id] = key;
+        if(key > oldKey){
+            siftUp(pos);
+        }else if(key < oldKey){
+            siftDown(pos);
+        }
+    }
+
+    /**
+     * @return The id with the largest key, without removing it.
+     */
+    public int peek(){
+        if(size == 0){
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+
+    /**
+     * @return The id with the largest key, which is removed.
+     */
+    public int poll(){
+        int id = peek();
+        removeAt(0);
+        return id;
+    }
+
+    /**
+     * Remove an id, does nothing if it is not in the heap.
+     * @param id The id.
+     * @return True if the id was removed.
+     */
+    public boolean remove(int id){
+        int pos = positions[id];
+        if(pos == -1){
+            return false;
+        }
+        removeAt(pos);
+        return true;
+    }
+
+    private void removeAt(int pos){
+        int id = heap[pos];
+        positions[id] = -1;
+        size--;
+        if(pos == size){
+            return;
+        }
+        //move the last id into the hole and restore the heap property
+        int last = heap[size];
+        heap[pos] = last;
+        positions[last] = pos;
+        siftDown(pos);
+        if(heap[pos] == last){
+            siftUp(pos);
+        }
+    }
+
+    /**
+     * @return True if id a should be above id b.
+     */
+    private boolean above(int a, int b){
+        return keys[a] > keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private void siftUp(int pos){
+        int id = heap[pos];
+        while(pos > 0){
+            int parentPos = (pos - 1) >>> 1;
+            int parent = heap[parentPos];
+            if(!above(id, parent)){
+                break;
+            }
+            heap[pos] = parent;
+            positions[parent] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+
+    private void siftDown(int pos){
+        int id = heap[pos];
+        int half = size >>> 1;
+        while(pos < half){
+            int childPos = 2 * pos + 1;
+            int child = heap[childPos];
+            int rightPos = childPos + 1;
+            if(rightPos < size && above(heap[rightPos], child)){
+                childPos = rightPos;
+                child = heap[rightPos];
+            }
+            if(!above(child, id)){
+                break;
+            }
+            heap[pos] = child;
+            positions[child] = pos;
+            pos = childPos;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+
+}
@@ -0,0 +1,601 @@
+package onethreeseven.spm.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * A {@link Trie} specialised for int symbols. Keys, counts and child links are all
+ * stored in primitive arrays so that adding or querying a sequence does no boxing.
+ * Sequences can also be passed as a window (offset and length) into a larger array,
+ * which means contiguous sub-sequences never have to be copied out just to query them.
+ * @author Luke Bermingham
+ */
+public class IntTrie {
+
+    private static final int[] EMPTY_VALUES = new int[0];
+
+    private final IntTrieNode rootNode;
+    //a node is locked if its lock stamp equals the current generation, so unlocking everything is just
+    //moving on to the next generation (instead of visiting every locked node)
+    private int lockGeneration = 1;
+    //the number of nodes, not counting the root
+    private long nNodes = 0;
+
+    public IntTrie(){
+        this.rootNode = new IntTrieNode(0);
+    }
+
+    public boolean add(int[] sequence){
+        return add(sequence, 0, sequence.length, sequence.length, false, false);
+    }
+
+    public boolean add(int[] sequence, int maxNewNodes, boolean lockLastNode, boolean markLastNode){
+        return add(sequence, 0, sequence.length, maxNewNodes, lockLastNode, markLastNode);
+    }
+
+    /**
+     * Add the given sequence to the Trie - may create new nodes.
+     * Note: Adding the same sequence will just increase the count of the last node (assuming it isn't locked).
+     * @param sequence The array holding the sequence to add.
+     * @param offset The index in the array where the sequence starts.
+     * @param length The length of the sequence.
+     * @param maxNewNodes A maximum number of new nodes can be specified, if more than this number of new nodes has
+     *                    to be created to insert the sequence, then the insertion fails.
+     * @param lockLastNode Locking a node prevents its count from being increased until unlocked.
+     *                     If the sequence ends in an already existing locked node then insertion fails.
+     * @param markLastNode Nodes can be marked or unmarked regardless of locking.
+     * @return Whether the count of the nodes in the path increased (this includes making new nodes).
+     */
+    public boolean add(int[] sequence, int offset, int length, int maxNewNodes,
+                       boolean lockLastNode, boolean markLastNode){
+
+        if(length > 0){
+
+            final int end = offset + length;
+            IntTrieNode curNode = rootNode;
+            int i = offset;
+
+            for (; i < end; i++) {
+                IntTrieNode child = curNode.getChild(sequence[i]);
+                if(child == null){
+                    break;
+                }
+                curNode = child;
+            }
+
+            //case: the path already existed, we may need to increase the count at its end node
+            if(i == end){
+                //case: we processed a path that ends in an already existing locked node, can't increase count
+                if(isLocked(curNode)){
+                    return false;
+                }
+                curNode.count++;
+                if(lockLastNode){lock(curNode);}
+                if(markLastNode){mark(curNode);}
+                return true;
+            }
+
+            //case: too many new nodes would be required
+            if(end - i > maxNewNodes){
+                return false;
+            }
+
+            //case: we have some sequence remainder that needs new nodes
+            for (; i < end; i++) {
+                IntTrieNode newNode = createNode(sequence[i]);
+                curNode.addChild(newNode);
+                curNode = newNode;
+            }
+            if(lockLastNode){lock(curNode);}
+            if(markLastNode){mark(curNode);}
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add the given sequence to the Trie, increasing the count of its last node by the given amount.
+     * Unlike {@link #add(int[], int, int, int, boolean, boolean)} this ignores locking, it is used to
+     * merge counts that were already de-duplicated elsewhere.
+     * It is not thread-safe, but when every node of the sequence except the last already exists it only
+     * changes the children of the second last node and the last node itself, so other threads may
+     * safely read paths no longer than the sequence's prefix while it runs (this is how the parallel
+     * contiguous miners merge length k windows while still reading length k-1 windows).
+     * @param sequence The sequence to add.
+     * @param count The amount to increase the count by (or the count of the last node, if it is new).
+     * @param markLastNode Whether to mark the last node.
+     * @return The count of the last node after adding.
+     */
+    public int addCount(int[] sequence, int count, boolean markLastNode){
+        return addCount(sequence, 0, sequence.length, count, markLastNode);
+    }
+
+    /**
+     * See {@link #addCount(int[], int, boolean)}.
+     * @param sequence The array holding the sequence to add.
+     * @param offset The index in the array where the sequence starts.
+     * @param length The length of the sequence.
+     * @param count The amount to increase the count by (or the count of the last node, if it is new).
+     * @param markLastNode Whether to mark the last node.
+     * @return The count of the last node after adding.
+     */
+    public int addCount(int[] sequence, int offset, int length, int count, boolean markLastNode){
+        if(length < 1){
+            return 0;
+        }
+        final int lastIdx = offset + length - 1;
+        IntTrieNode curNode = rootNode;
+        for (int i = offset; i < lastIdx; i++) {
+            IntTrieNode child = curNode.getChild(sequence[i]);
+            if(child == null){
+                child = createNode(sequence[i]);
+                curNode.addChild(child);
+            }
+            curNode = child;
+        }
+        IntTrieNode endNode = curNode.getChild(sequence[lastIdx]);
+        if(endNode == null){
+            endNode = createNode(sequence[lastIdx]);
+            endNode.count = count;
+            curNode.addChild(endNode);
+        }else{
+            endNode.count += count;
+        }
+        if(markLastNode){mark(endNode);}
+        return endNode.count;
+    }
+
+    public boolean isEmpty(){
+        return rootNode.getNumChildren() == 0;
+    }
+
+    /**
+     * Removes a node from the root node.
+     * @param item The value of the node to remove.
+     * @return True if the node was a child of the root node, otherwise false.
+     */
+    public boolean remove1stLevelNode(int item) {
+        IntTrieNode childToRemove = rootNode.getChild(item);
+        return childToRemove != null && removeNode(rootNode, childToRemove);
+    }
+
+    public int getFrequencyOf(int[] sequence){
+        return getFrequencyOf(sequence, 0, sequence.length);
+    }
+
+    /**
+     * Gets the frequency of the last node in a given sequence (the whole sequence must exist though).
+     * @param sequence The array holding the sequence to query for.
+     * @param offset The index in the array where the sequence starts.
+     * @param length The length of the sequence.
+     * @return The count for the sequence at the last node, or 0 if it didn't exist in the Trie.
+     */
+    public int getFrequencyOf(int[] sequence, int offset, int length){
+        if(length < 1){
+            return 0;
+        }
+        IntTrieNode endNode = getNode(sequence, offset, length);
+        return endNode == null ? 0 : endNode.count;
+    }
+
+    /**
+     * Sets the state of all nodes in the Trie to unlocked.
+     */
+    public void unlockAll() {
+        lockGeneration++;
+        //case: generations wrapped around, old stamps could now look locked so clear them all
+        if(lockGeneration == 0){
+            ArrayDeque<IntTrieNode> toVisit = new ArrayDeque<>();
+            toVisit.add(rootNode);
+            while(!toVisit.isEmpty()){
+                IntTrieNode node = toVisit.poll();
+                node.lockStamp = 0;
+                for (int i = 0; i < node.getNumSlots(); i++) {
+                    if(node.getChildAt(i) != null){
+                        toVisit.add(node.getChildAt(i));
+                    }
+                }
+            }
+            lockGeneration = 1;
+        }
+    }
+
+    /**
+     * Checks that the end node is the new sequence meets the required support
+     * and if it doesn't then remove it from being stored.
+     * @param sequence The sequence to test.
+     * @param minSup The minimum support to meet.
+     * @return True if it exists (even if it was then removed for not meeting the support).
+     */
+    public boolean supersede(int[] sequence, int minSup){
+        if(sequence.length == 0){
+            return false;
+        }
+        IntTrieNode parent = getNode(sequence, 0, sequence.length - 1);
+        IntTrieNode endNode = parent == null ? null : parent.getChild(sequence[sequence.length - 1]);
+        if(endNode == null){
+            return false;
+        }
+        //case: did not meet support requirement, remove it
+        if(endNode.count < minSup){
+            removeNode(parent, endNode);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether this sequence exists, whether it meets a minimum count support,
+     * and if it does then un-mark its pre/post. However, if it exists but doesn't meet the support
+     * remove it.
+     * @param sequence The candidate sequence.
+     * @param minSup The minimum required support count.
+     * @param patternClosure The rule used to discard patterns.
+     * @return True if it exists with minimum support.
+     */
+    public boolean supersede(int[] sequence, int minSup, IPatternClosure patternClosure){
+        if(sequence.length == 0){
+            return false;
+        }
+        //if the parent or end node is missing, then the sequence doesn't even exist in the Trie
+        IntTrieNode parent = getNode(sequence, 0, sequence.length - 1);
+        IntTrieNode endNode = parent == null ? null : parent.getChild(sequence[sequence.length - 1]);
+        if(endNode == null){
+            return false;
+        }
+
+        //case: did not meet support requirement, remove it
+        if(endNode.count < minSup){
+            removeNode(parent, endNode);
+            return false;
+        }
+
+        //met the requirement, unMark pre-sequence if necessary (same count means we can un-mark parent)
+        if(isMarked(parent) && patternClosure.discard(parent.count, endNode.count)){
+            unMark(parent);
+        }
+
+        //unMark post-sequence if necessary, note starting at 1, goes down a different branch
+        if(sequence.length > 1){
+            IntTrieNode postNode = getNode(sequence, 1, sequence.length - 1);
+            if(postNode != null && patternClosure.discard(postNode.count, endNode.count) && isMarked(postNode)){
+                unMark(postNode);
+            }
+        }
+        mark(endNode);
+        return true;
+    }
+
+    /**
+     * @param showSubPatterns Do you want sub-patterns or not?
+     * @return An iterator for all the paths (and their subsets) in this Trie.
+     */
+    public IntTrieIterator getPatternIterator(boolean showSubPatterns){
+        return new IntTrieIterator(this, rootNode, null, showSubPatterns);
+    }
+
+    /**
+     * @param firstItem The first item of the patterns.
+     * @param showSubPatterns Do you want sub-patterns or not?
+     * @return An iterator for the paths (and their subsets) that start with the given item,
+     * in the same order {@link #getPatternIterator(boolean)} would visit them.
+     */
+    public IntTrieIterator getPatternIterator(int firstItem, boolean showSubPatterns){
+        IntTrieNode firstNode = rootNode.getChild(firstItem);
+        if(firstNode == null){
+            //an empty root has no paths
+            return new IntTrieIterator(this, new IntTrieNode(0), null, showSubPatterns);
+        }
+        return new IntTrieIterator(this, rootNode, firstNode, showSubPatterns);
+    }
+
+    /**
+     * @return The items of the 1st level nodes, in the order the Trie iterates them.
+     */
+    public int[] get1stLevelItems(){
+        int[] items = new int[rootNode.getNumChildren()];
+        int n = 0;
+        for (int i = 0; i < rootNode.getNumSlots(); i++) {
+            IntTrieNode child = rootNode.getChildAt(i);
+            if(child != null){
+                items[n++] = child.getValue();
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Walk down the Trie following the given sequence.
+     * @return The node the sequence ends at, or null if the sequence is not in the Trie.
+     * An empty sequence ends at the root node.
+     */
+    IntTrieNode getNode(int[] sequence, int offset, int length){
+        IntTrieNode curNode = rootNode;
+        final int end = offset + length;
+        for (int i = offset; i < end && curNode != null; i++) {
+            curNode = curNode.getChild(sequence[i]);
+        }
+        return curNode;
+    }
+
+    void unMark(IntTrieNode node){
+        node.marked = false;
+    }
+
+    void lock(IntTrieNode node){
+        node.lockStamp = lockGeneration;
+    }
+
+    void mark(IntTrieNode node){
+        node.marked = true;
+    }
+
+    boolean isMarked(IntTrieNode node){
+        return node.marked;
+    }
+
+    private IntTrieNode createNode(int value){
+        nNodes++;
+        return new IntTrieNode(value);
+    }
+
+    /**
+     * Remove a child (and so its whole subtree) from its parent.
+     * @return True if it was a child of the parent.
+     */
+    private boolean removeNode(IntTrieNode parent, IntTrieNode child){
+        if(!parent.removeChild(child)){
+            return false;
+        }
+        //usually a leaf, otherwise count the subtree that went with it
+        if(child.getNumChildren() == 0){
+            nNodes--;
+            return true;
+        }
+        ArrayDeque<IntTrieNode> toVisit = new ArrayDeque<>();
+        toVisit.add(child);
+        while(!toVisit.isEmpty()){
+            IntTrieNode node = toVisit.poll();
+            nNodes--;
+            for (int i = 0; i < node.getNumSlots(); i++) {
+                if(node.getChildAt(i) != null){
+                    toVisit.add(node.getChildAt(i));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove every node whose count is below the given support, along with its subtree.
+     * @param minSup The minimum count a node needs to stay in the Trie.
+     * @return The number of nodes removed.
+     */
+    public long removeBelow(int minSup){
+        final long nBefore = nNodes;
+        final ArrayDeque<IntTrieNode> toVisit = new ArrayDeque<>();
+        final ArrayList<IntTrieNode> toRemove = new ArrayList<>();
+        toVisit.add(rootNode);
+        while(!toVisit.isEmpty()){
+            IntTrieNode node = toVisit.poll();
+            for (int i = 0; i < node.getNumSlots(); i++) {
+                IntTrieNode child = node.getChildAt(i);
+                if(child == null){
+                    continue;
+                }
+                if(child.count < minSup){
+                    toRemove.add(child);
+                }else{
+                    toVisit.add(child);
+                }
+            }
+            //removing can compact the slots, so only remove once the slots have been read
+            for (IntTrieNode child : toRemove) {
+                removeNode(node, child);
+            }
+            toRemove.clear();
+        }
+        return nBefore - nNodes;
+    }
+
+    /**
+     * @return The number of nodes in the Trie (not counting the root).
+     */
+    public long getNumNodes(){
+        return nNodes;
+    }
+
+    private boolean isLocked(IntTrieNode node){
+        return node.lockStamp == lockGeneration;
+    }
+
+    /**
+     * Inner node class, children are kept in insertion order in parallel arrays.
+     * Nodes with few children are searched linearly, once a node has more than
+     * {@link Trie#CHILD_INDEX_THRESHOLD} children an open-addressed hash index of
+     * child value to slot is built so look-ups stay constant time for any fan-out.
+     * Removed children leave an empty slot behind, the slots are compacted once enough
+     * of them are empty, this keeps removal cheap for wide nodes like the root.
+     */
+    static class IntTrieNode{
+
+        private final int value;
+        //implicitly there is no empty nodes in this Trie model
+        private int count = 1;
+        //the lock generation this node was locked in (see IntTrie.lockGeneration)
+        private int lockStamp = 0;
+        private boolean marked = false;
+
+        private int[] childValues = EMPTY_VALUES;
+        private IntTrieNode[] children = null;
+        //number of used slots (including removed ones) and number of removed slots
+        private int nSlots = 0;
+        private int nRemoved = 0;
+        //open-addressed table of (slot + 1), zero means empty, null until the node gets wide
+        private int[] childIndex = null;
+
+        IntTrieNode(int value){
+            this.value = value;
+        }
+
+        IntTrieNode getChild(int childValue){
+            final int[] values = childValues;
+            if(childIndex == null){
+                for (int i = 0; i < nSlots; i++) {
+                    if(values[i] == childValue && children[i] != null){
+                        return children[i];
+                    }
+                }
+                return null;
+            }
+            final int mask = childIndex.length - 1;
+            for (int h = hash(childValue) & mask; childIndex[h] != 0; h = (h + 1) & mask) {
+                int slot = childIndex[h] - 1;
+                //note: slots of removed children stay in the index until the next rebuild, so skip them
+                if(values[slot] == childValue && children[slot] != null){
+                    return children[slot];
+                }
+            }
+            return null;
+        }
+
+        void addChild(IntTrieNode child){
+            if(nSlots == childValues.length){
+                int newCapacity = Math.max(2, nSlots * 2);
+                int[] newValues = new int[newCapacity];
+                IntTrieNode[] newChildren = new IntTrieNode[newCapacity];
+                System.arraycopy(childValues, 0, newValues, 0, nSlots);
+                if(children != null){
+                    System.arraycopy(children, 0, newChildren, 0, nSlots);
+                }
+                childValues = newValues;
+                children = newChildren;
+            }
+            int slot = nSlots++;
+            childValues[slot] = child.value;
+            children[slot] = child;
+
+            if(childIndex != null){
+                if(nSlots * 2 <= childIndex.length){
+                    indexSlot(slot);
+                }else{
+                    rebuildIndex();
+                }
+            }
+            else if(getNumChildren() > Trie.CHILD_INDEX_THRESHOLD){
+                rebuildIndex();
+            }
+        }
+
+        boolean removeChild(IntTrieNode child){
+            for (int i = 0; i < nSlots; i++) {
+                if(children[i] == child){
+                    removeSlot(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void removeSlot(int slot){
+            //small nodes just shift the remaining children down
+            if(childIndex == null){
+                int nToShift = nSlots - slot - 1;
+                System.arraycopy(childValues, slot + 1, childValues, slot, nToShift);
+                System.arraycopy(children, slot + 1, children, slot, nToShift);
+                nSlots--;
+                children[nSlots] = null;
+                return;
+            }
+            //wide nodes leave an empty slot and compact once half the slots are empty
+            children[slot] = null;
+            nRemoved++;
+            if(nRemoved * 2 > nSlots){
+                compact();
+            }
+        }
+
+        private void compact(){
+            int j = 0;
+            for (int i = 0; i < nSlots; i++) {
+                if(children[i] != null){
+                    childValues[j] = childValues[i];
+                    children[j] = children[i];
+                    j++;
+                }
+            }
+            for (int i = j; i < nSlots; i++) {
+                children[i] = null;
+            }
+            nSlots = j;
+            nRemoved = 0;
+            if(nSlots > Trie.CHILD_INDEX_THRESHOLD){
+                rebuildIndex();
+            }
+            else{
+                childIndex = null;
+            }
+        }
+
+        private void rebuildIndex(){
+            int capacity = Integer.highestOneBit(Math.max(4, nSlots * 4 - 1)) << 1;
+            childIndex = new int[capacity];
+            for (int i = 0; i < nSlots; i++) {
+                if(children[i] != null){
+                    indexSlot(i);
+                }
+            }
+        }
+
+        private void indexSlot(int slot){
+            final int mask = childIndex.length - 1;
+            int h = hash(childValues[slot]) & mask;
+            while(childIndex[h] != 0){
+                h = (h + 1) & mask;
+            }
+            childIndex[h] = slot + 1;
+        }
+
+        int getNumChildren(){
+            return nSlots - nRemoved;
+        }
+
+        /**
+         * @return The number of child slots, some of these may be empty (see {@link #getChildAt(int)}).
+         */
+        int getNumSlots(){
+            return nSlots;
+        }
+
+        /**
+         * @param slot The slot index.
+         * @return The child in this slot, or null if that child was removed.
+         */
+        IntTrieNode getChildAt(int slot){
+            return children[slot];
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "IntTrieNode{value=" + value +
+                    "|count=" + count +
+                    (marked ? "|marked" : "|unmarked") +
+                    "|lockStamp=" + lockStamp + "}";
+        }
+
+    }
+
+    private static int hash(int value){
+        //spread the bits so sequential item ids don't cluster in the table
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,210 @@
+package onethreeseven.spm.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Pattern iterator for {@link IntTrie}. It also has facility to check the count of a pattern
+ * and whether or not it ends in a marked node.
+ *
+ * The Trie is walked depth first with an explicit stack of nodes and, for each node on the stack,
+ * the slot of the next child to visit. The current pattern is kept in a reusable buffer
+ * (see {@link #advance()} and {@link #getItems()}) so moving between patterns allocates nothing,
+ * {@link #next()} (or {@link #copyPattern()}) only copies the pattern out when it is asked for.
+ * @author Luke Bermingham
+ */
+public class IntTrieIterator implements Iterator<int[]> {
+
+    private final boolean showSubPatterns;
+    private final IntTrie t;
+    //the stack is never popped above this depth (it is 1 when only one 1st level subtree is iterated)
+    private final int minDepth;
+
+    //the current root-to-leaf path, nodes[0] is the root
+    private IntTrie.IntTrieNode[] nodes = new IntTrie.IntTrieNode[16];
+    //for each node on the path, the slot of the next child to visit
+    private int[] cursors = new int[16];
+    //the items of the path (excluding the root)
+    private int[] items = new int[16];
+    //the number of nodes on the path (including the root)
+    private int stackSize = 0;
+    //how many more prefixes of the current path there are to visit
+    private int prefixesLeft = 0;
+    private boolean started = false;
+
+    private int patternLength = 0;
+    private IntTrie.IntTrieNode endNode = null;
+
+    /**
+     * @param t The Trie to iterate.
+     * @param root The root node of the Trie.
+     * @param firstNode If non-null only the paths starting at this 1st level node are visited.
+     * @param showSubPatterns Whether to visit every prefix of each path or just the whole path.
+     */
+    IntTrieIterator(IntTrie t, IntTrie.IntTrieNode root, IntTrie.IntTrieNode firstNode, boolean showSubPatterns) {
+        this.t = t;
+        this.showSubPatterns = showSubPatterns;
+        this.minDepth = (firstNode == null) ? 0 : 1;
+        push(root);
+        if(firstNode != null){
+            push(firstNode);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(prefixesLeft > 0){
+            return true;
+        }
+        if(!started){
+            //the first node is a path all on its own, the root is not
+            return minDepth == 1 || stackSize > 0 && nodes[0].getNumChildren() > 0;
+        }
+        //there is another path if any node on the stack still has a child left to visit
+        for (int depth = stackSize - 1; depth >= minDepth; depth--) {
+            IntTrie.IntTrieNode node = nodes[depth];
+            for (int slot = cursors[depth]; slot < node.getNumSlots(); slot++) {
+                if(node.getChildAt(slot) != null){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move to the next pattern, without copying it.
+     * @return False if there are no patterns left.
+     */
+    public boolean advance(){
+        if(prefixesLeft == 0){
+            if(!nextPath()){
+                patternLength = 0;
+                endNode = null;
+                return false;
+            }
+            prefixesLeft = showSubPatterns ? stackSize - 1 : 1;
+            patternLength = stackSize;
+        }
+        //each prefix is one shorter than the last
+        patternLength--;
+        prefixesLeft--;
+        endNode = nodes[patternLength];
+        return true;
+    }
+
+    /**
+     * @return A copy of the next pattern.
+     */
+    @Override
+    public int[] next() {
+        if(!advance()){
+            throw new NoSuchElementException("There is no paths left to traverse.");
+        }
+        return copyPattern();
+    }
+
+    /**
+     * @return The number of items in the current pattern.
+     */
+    public int getLength(){
+        return patternLength;
+    }
+
+    /**
+     * @return The items of the current pattern in its first {@link #getLength()} slots.
+     * Note: this buffer is reused (and overwritten) as the iterator moves on, copy it if it has to be kept.
+     */
+    public int[] getItems(){
+        return items;
+    }
+
+    /**
+     * @return A copy of the current pattern.
+     */
+    public int[] copyPattern(){
+        return Arrays.copyOf(items, patternLength);
+    }
+
+    /**
+     * Go down to the next leaf (or back up and then down), leaving its path on the stack.
+     * @return False if every path has been visited.
+     */
+    private boolean nextPath(){
+        if(!started){
+            started = true;
+            //case: the first node is a leaf, so it is the only path
+            if(minDepth == 1 && nodes[1].getNumChildren() == 0){
+                return true;
+            }
+        }
+
+        //go back up until we find a node with children left to visit
+        while(stackSize > minDepth){
+            int depth = stackSize - 1;
+            IntTrie.IntTrieNode node = nodes[depth];
+            //skip the slots of removed children
+            int slot = cursors[depth];
+            while(slot < node.getNumSlots() && node.getChildAt(slot) == null){
+                slot++;
+            }
+            cursors[depth] = slot;
+            if(slot < node.getNumSlots()){
+                break;
+            }
+            stackSize--;
+        }
+        if(stackSize == minDepth){
+            return false;
+        }
+
+        //now go down, always taking the next unvisited child, until we hit a leaf
+        IntTrie.IntTrieNode node = nodes[stackSize - 1];
+        while(node.getNumChildren() > 0){
+            int depth = stackSize - 1;
+            int slot = cursors[depth];
+            while(node.getChildAt(slot) == null){
+                slot++;
+            }
+            cursors[depth] = slot + 1;
+            node = node.getChildAt(slot);
+            push(node);
+        }
+        return true;
+    }
+
+    private void push(IntTrie.IntTrieNode node){
+        if(stackSize == nodes.length){
+            nodes = Arrays.copyOf(nodes, stackSize * 2);
+            cursors = Arrays.copyOf(cursors, stackSize * 2);
+            items = Arrays.copyOf(items, stackSize * 2);
+        }
+        nodes[stackSize] = node;
+        cursors[stackSize] = 0;
+        //the root has no item, so node i on the path is item i - 1
+        if(stackSize > 0){
+            items[stackSize - 1] = node.getValue();
+        }
+        stackSize++;
+    }
+
+    public int getValue(){
+        return endNode != null ? endNode.getValue() : 0;
+    }
+
+    public int getCount() {
+        return endNode != null ? endNode.getCount() : 0;
+    }
+
+    public boolean isMarked() {
+        return endNode != null && t.isMarked(endNode);
+    }
+
+    public void unMark(){
+        if(endNode != null){
+            t.unMark(endNode);
+        }
+    }
+
+}
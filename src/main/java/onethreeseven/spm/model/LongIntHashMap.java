@@ -0,0 +1,169 @@
+package onethreeseven.spm.model;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive long keys to primitive int values, so neither keys nor values are boxed.
+ * Uses open addressing with linear probing, and removal shifts the following entries back
+ * (instead of leaving tombstones) so lookups stay short no matter how many keys are removed.
+ * @author Luke Bermingham
+ */
+public class LongIntHashMap {
+
+    private static final int defaultCapacity = 16;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size = 0;
+
+    public LongIntHashMap(int expectedSize){
+        int capacity = defaultCapacity;
+        while(capacity * 3 < expectedSize * 4L){
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public LongIntHashMap(){
+        this(defaultCapacity / 2);
+    }
+
+    private void allocate(int capacity){
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private int slotOf(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * @return The slot holding the key, or the empty slot where it would be inserted (as -slot - 1).
+     */
+    private int find(long key){
+        int slot = slotOf(key);
+        while(used[slot]){
+            if(keys[slot] == key){
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public boolean containsKey(long key){
+        return find(key) >= 0;
+    }
+
+    /**
+     * @param key The key.
+     * @param defaultValue Returned if the key is not in the map.
+     * @return The value of the key.
+     */
+    public int get(long key, int defaultValue){
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    public void put(long key, int value){
+        int slot = find(key);
+        if(slot >= 0){
+            values[slot] = value;
+        }else{
+            insert(-slot - 1, key, value);
+        }
+    }
+
+    /**
+     * Add to the value of a key, a missing key is treated as having the value zero.
+     * @param key The key.
+     * @param delta The amount to add.
+     * @return The new value of the key.
+     */
+    public int addTo(long key, int delta){
+        int slot = find(key);
+        if(slot >= 0){
+            values[slot] += delta;
+            return values[slot];
+        }
+        insert(-slot - 1, key, delta);
+        return delta;
+    }
+
+    private void insert(int slot, long key, int value){
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        size++;
+        if(size * 4L > keys.length * 3L){
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void rehash(int capacity){
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if(oldUsed[i]){
+                int slot = slotOf(oldKeys[i]);
+                while(used[slot]){
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * @param key The key to remove.
+     * @return True if the key was in the map.
+     */
+    public boolean remove(long key){
+        int hole = find(key);
+        if(hole < 0){
+            return false;
+        }
+        //shift back any following entries that would no longer be reachable across the hole
+        int slot = hole;
+        while(true){
+            slot = (slot + 1) & mask;
+            if(!used[slot]){
+                break;
+            }
+            int home = slotOf(keys[slot]);
+            //the entry can move into the hole if its home is not (cyclically) in (hole, slot]
+            boolean reachable = (hole <= slot) ? (home > hole && home <= slot) : (home > hole || home <= slot);
+            if(!reachable){
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+
+    public void clear(){
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+}
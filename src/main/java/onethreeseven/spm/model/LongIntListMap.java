@@ -0,0 +1,97 @@
+package onethreeseven.spm.model;
+
+import java.util.Arrays;
+
+/**
+ * Maps primitive long keys to lists of primitive ints (i.e. posting lists), without boxing.
+ * Each key indexes a growable int array through a {@link LongIntHashMap}.
+ * @author Luke Bermingham
+ */
+public class LongIntListMap {
+
+    private final LongIntHashMap listIndex;
+    private int[][] lists;
+    private int[] sizes;
+    private int nLists = 0;
+
+    public LongIntListMap(int expectedKeys){
+        this.listIndex = new LongIntHashMap(expectedKeys);
+        this.lists = new int[Math.max(16, expectedKeys)][];
+        this.sizes = new int[lists.length];
+    }
+
+    public LongIntListMap(){
+        this(16);
+    }
+
+    /**
+     * Append a value to the list of a key, unless it is already the last value of that list.
+     * So values added in order to a key are never stored twice in a row.
+     * @param key The key.
+     * @param value The value to append.
+     * @return True if the value was appended.
+     */
+    public boolean add(long key, int value){
+        int listIdx = listIndex.get(key, -1);
+        if(listIdx == -1){
+            if(nLists == lists.length){
+                lists = Arrays.copyOf(lists, nLists * 2);
+                sizes = Arrays.copyOf(sizes, nLists * 2);
+            }
+            listIdx = nLists++;
+            listIndex.put(key, listIdx);
+            lists[listIdx] = new int[2];
+        }
+        int[] list = lists[listIdx];
+        int size = sizes[listIdx];
+        if(size > 0 && list[size - 1] == value){
+            return false;
+        }
+        if(size == list.length){
+            list = Arrays.copyOf(list, size * 2);
+            lists[listIdx] = list;
+        }
+        list[size] = value;
+        sizes[listIdx] = size + 1;
+        return true;
+    }
+
+    public boolean containsKey(long key){
+        return listIndex.containsKey(key);
+    }
+
+    /**
+     * @return The number of keys.
+     */
+    public int size(){
+        return listIndex.size();
+    }
+
+    /**
+     * @param key The key.
+     * @return The number of values in the list of that key, zero if there is no such key.
+     */
+    public int getListSize(long key){
+        int listIdx = listIndex.get(key, -1);
+        return listIdx == -1 ? 0 : sizes[listIdx];
+    }
+
+    /**
+     * Remove a key and return its list.
+     * @param key The key.
+     * @return The values of the key (exactly sized), or null if there is no such key.
+     */
+    public int[] remove(long key){
+        int listIdx = listIndex.get(key, -1);
+        if(listIdx == -1){
+            return null;
+        }
+        listIndex.remove(key);
+        int[] list = Arrays.copyOf(lists[listIdx], sizes[listIdx]);
+        //the slot of the list is not reused, but its memory is released
+        lists[listIdx] = null;
+        sizes[listIdx] = 0;
+        return list;
+    }
+
+}
@@ -0,0 +1,149 @@
+package onethreeseven.spm.model;
+
+/**
+ * A suffix array with its longest common prefix (LCP) array, built over an int text.
+ * The suffix array is built by prefix doubling using radix sorting, which is O(n log n),
+ * and the LCP array is then built in linear time using Kasai's algorithm.
+ * See: https://en.wikipedia.org/wiki/Suffix_array
+ * @author Luke Bermingham
+ */
+public class SuffixArray {
+
+    private final int[] text;
+    private final int[] sa;
+    private final int[] lcp;
+
+    /**
+     * Build the suffix array and LCP array of some text.
+     * @param text The text, every symbol must be in the range [0, alphabetSize).
+     * @param alphabetSize The number of distinct symbols the text can contain.
+     */
+    public SuffixArray(int[] text, int alphabetSize){
+        this.text = text;
+        this.sa = buildSuffixArray(text, alphabetSize);
+        this.lcp = buildLcp(text, sa);
+    }
+
+    public int[] getText() {
+        return text;
+    }
+
+    /**
+     * @return The start index of each suffix of the text, in sorted order of the suffixes.
+     */
+    public int[] getSuffixArray() {
+        return sa;
+    }
+
+    /**
+     * @return The LCP array, where lcp[i] is the length of the longest common prefix of the
+     * suffixes at sa[i-1] and sa[i]. Note: lcp[0] is always zero.
+     */
+    public int[] getLcp() {
+        return lcp;
+    }
+
+    public int size(){
+        return text.length;
+    }
+
+    private static int[] buildSuffixArray(int[] text, int alphabetSize){
+        final int n = text.length;
+        int[] sa = new int[n];
+        if(n == 0){
+            return sa;
+        }
+        int[] rank = new int[n];
+        int[] tmp = new int[n];
+
+        //initial ranks are the symbols themselves, sort suffixes by first symbol
+        int[] counts = new int[Math.max(alphabetSize, n) + 1];
+        for (int i = 0; i < n; i++) {
+            counts[text[i] + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i-1];
+        }
+        for (int i = 0; i < n; i++) {
+            sa[counts[text[i]]++] = i;
+        }
+        int nRanks = 0;
+        for (int i = 0; i < n; i++) {
+            if(i > 0 && text[sa[i]] != text[sa[i-1]]){
+                nRanks++;
+            }
+            rank[sa[i]] = nRanks;
+        }
+        nRanks++;
+
+        //double the length of the sorted prefixes each round until every rank is unique
+        for (int k = 1; nRanks < n; k <<= 1) {
+            //order by second key: suffixes with no second half come first, the rest follow the current order
+            int p = 0;
+            for (int i = n - k; i < n; i++) {
+                tmp[p++] = i;
+            }
+            for (int i = 0; i < n; i++) {
+                if(sa[i] >= k){
+                    tmp[p++] = sa[i] - k;
+                }
+            }
+            //stable counting sort by first key
+            java.util.Arrays.fill(counts, 0, nRanks + 1, 0);
+            for (int i = 0; i < n; i++) {
+                counts[rank[i] + 1]++;
+            }
+            for (int i = 1; i <= nRanks; i++) {
+                counts[i] += counts[i-1];
+            }
+            for (int i = 0; i < n; i++) {
+                int suffix = tmp[i];
+                sa[counts[rank[suffix]]++] = suffix;
+            }
+            //re-rank, suffixes get the same rank only if both halves match
+            tmp[sa[0]] = 0;
+            nRanks = 1;
+            for (int i = 1; i < n; i++) {
+                int a = sa[i-1];
+                int b = sa[i];
+                int secondA = (a + k < n) ? rank[a + k] : -1;
+                int secondB = (b + k < n) ? rank[b + k] : -1;
+                if(rank[a] != rank[b] || secondA != secondB){
+                    nRanks++;
+                }
+                tmp[b] = nRanks - 1;
+            }
+            int[] swap = rank;
+            rank = tmp;
+            tmp = swap;
+        }
+        return sa;
+    }
+
+    private static int[] buildLcp(int[] text, int[] sa){
+        final int n = text.length;
+        int[] lcp = new int[n];
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[sa[i]] = i;
+        }
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            if(rank[i] > 0){
+                int j = sa[rank[i] - 1];
+                while(i + h < n && j + h < n && text[i + h] == text[j + h]){
+                    h++;
+                }
+                lcp[rank[i]] = h;
+                if(h > 0){
+                    h--;
+                }
+            }
+            else{
+                h = 0;
+            }
+        }
+        return lcp;
+    }
+
+}
@@ -9,11 +9,13 @@ import java.util.*;
  */
 public class Trie<T> {
 
-    private static int idGen = 0;
+    //once a node has more children than this, child look-ups go through a hash index
+    static final int CHILD_INDEX_THRESHOLD = 16;
 
     private final TrieNode rootNode;
-    private final BitSet lockedNodes = new BitSet();
-    private final BitSet markedNodes = new BitSet();
+    //a node is locked if its lock stamp equals the current generation, so unlocking everything is just
+    //moving on to the next generation (instead of visiting every locked node)
+    private int lockGeneration = 1;
 
     public Trie(){
         this.rootNode = createNode(null);
@@ -78,7 +80,7 @@ public class Trie<T> {
 
                 for (; nodesProcessed < sequence.length; nodesProcessed++) {
                     TrieNode newNode = createNode(sequence[nodesProcessed]);
-                    curNode.children.add(newNode);
+                    curNode.addChild(newNode);
                     if(nodesProcessed + 1 == sequence.length){
                         if(lockLastNode){lock(newNode);}
                         if(markLastNode){mark(newNode);}
@@ -102,13 +104,7 @@ public class Trie<T> {
      * @return True if the node was a child of the root node, otherwise false.
      */
     public boolean remove1stLevelNode(T item) {
-        TrieNode childToRemove = null;
-        for (TrieNode child : rootNode.children) {
-            if (child.getValue().equals(item)) {
-                childToRemove = child;
-                break;
-            }
-        }
+        TrieNode childToRemove = rootNode.getChild(item);
         return childToRemove != null && this.rootNode.removeChild(childToRemove);
     }
 
@@ -135,7 +131,18 @@ public class Trie<T> {
      * Sets the state of all nodes in the Trie to unlocked.
      */
     public void unlockAll() {
-        lockedNodes.clear();
+        lockGeneration++;
+        //case: generations wrapped around, old stamps could now look locked so clear them all
+        if(lockGeneration == 0){
+            ArrayDeque<TrieNode> toVisit = new ArrayDeque<>();
+            toVisit.add(rootNode);
+            while(!toVisit.isEmpty()){
+                TrieNode node = toVisit.poll();
+                node.lockStamp = 0;
+                toVisit.addAll(node.children);
+            }
+            lockGeneration = 1;
+        }
     }
 
     /**
@@ -161,7 +168,7 @@ public class Trie<T> {
             TrieNode parent = (path.size() == 1) ? rootNode : path.get(path.size() - 2);
             //case: did not meet support requirement, remove it
             if (endNode.count < minSup) {
-                parent.children.remove(endNode);
+                parent.removeChild(endNode);
             }
             return true;
         }
@@ -194,7 +201,7 @@ public class Trie<T> {
             TrieNode parent = (path.size() == 1) ? rootNode : path.get(path.size()-2);
             //case: did not meet support requirement, remove it
             if(endNode.count < minSup){
-                parent.children.remove(endNode);
+                parent.removeChild(endNode);
             }
             //met the requirement, check to un-mark parent
             else{
@@ -210,19 +217,12 @@ public class Trie<T> {
                     TrieNode curNode = rootNode;
                     //note starting i = 1, goes down a different branch
                     for (int i = 1; i < sequence.length; i++) {
-                        T curVal = sequence[i];
-                        boolean foundMatch = false;
-                        for (TrieNode child : curNode.children) {
-                            if(child.value.equals(curVal)){
-                                curNode = child;
-                                foundMatch = true;
-                                break;
-                            }
-                        }
-                        if(!foundMatch){
+                        TrieNode child = curNode.getChild(sequence[i]);
+                        if(child == null){
                             break;
                         }
-                        else if(i == sequence.length - 1 && patternClosure.discard(curNode.getCount(), endNode.getCount())){
+                        curNode = child;
+                        if(i == sequence.length - 1 && patternClosure.discard(curNode.getCount(), endNode.getCount())){
                             if(isMarked(curNode)){
                                 unMark(curNode);
                             }
@@ -259,13 +259,7 @@ public class Trie<T> {
 
             @Override
             public TrieNode next() {
-                TrieNode matched = null;
-                for (TrieNode child : curNode.children) {
-                    if(child.value.equals(sequence[sequenceOffset])){
-                        matched = child;
-                        break;
-                    }
-                }
+                TrieNode matched = curNode.getChild(sequence[sequenceOffset]);
                 //case: there was a node match for the current symbol, look for another
                 if(matched != null){
                     sequenceOffset++;
@@ -283,86 +277,83 @@ public class Trie<T> {
     }
 
     /**
-     * @return An iterator for each unique path in the Trie.
+     * @return An iterator for each unique root-to-leaf path in the Trie.
      */
     Iterator<ArrayList<TrieNode>> getPathIter(){
 
-        final ArrayList<TrieNode> path = new ArrayList<>();
-        path.add(rootNode);
-        //a node if considered visited once all of its children
-        //have been visited. This means nodes with no children are visited
-        //once we have traversed to them.
-        final BitSet visited = new BitSet();
-
         return new Iterator<ArrayList<TrieNode>>() {
 
+            //the current path (including root) and for each node on it, the index of the next child to visit
+            private final ArrayList<TrieNode> path = new ArrayList<>();
+            private int[] cursors = new int[16];
+            private boolean started = false;
+            private ArrayList<TrieNode> nextPath = null;
+
             @Override
             public boolean hasNext() {
-                return !visited.get(rootNode.id);
+                if(nextPath == null){
+                    nextPath = advance();
+                }
+                return nextPath != null;
             }
 
             @Override
-            @SuppressWarnings("unchecked")
             public ArrayList<TrieNode> next() {
-
-                TrieNode endNode = path.get(path.size()-1);
-
-                //traverse up the tree if we have already processed this node
-                while(!path.isEmpty()){
-                    boolean isVisited = visited.get(endNode.id);
-                    if(isVisited){
-                        path.remove(path.size()-1); //poll
-                        endNode = path.get(path.size()-1); //peek last
-                    }
-                    //found and unvisited node, break to process it
-                    else{
-                        break;
-                    }
-                }
-
-                if(path.isEmpty()){
+                if(!hasNext()){
                     throw new NoSuchElementException("There is no paths left to traverse.");
                 }
+                ArrayList<TrieNode> out = nextPath;
+                nextPath = null;
+                return out;
+            }
 
-                //we have an unvisited node now, traverse down its unvisited children
-                while(!endNode.children.isEmpty()){
-                    for (TrieNode child : endNode.children) {
-                        if(!visited.get(child.id)){
-                            path.add(child);
-                            endNode = child;
-                            break;
-                        }
-                    }
+            private void push(TrieNode node){
+                int depth = path.size();
+                if(depth == cursors.length){
+                    cursors = Arrays.copyOf(cursors, depth * 2);
                 }
+                path.add(node);
+                cursors[depth] = 0;
+            }
 
-                //at this point we have an unvisited node that has no unvisited children
-                visited.set(endNode.id);
-
-                //check parents to make sure have not become "visited" by proxy because we made this child visited
-
-                //note: the "-2" because we have just processed the end node above
-                for (int i = path.size() - 2; i >= 0; i--) {
-                    TrieNode pathNode = path.get(i);
-                    //check path node that is has unvisited children
-                    if(pathNode.children.isEmpty()){
-                        visited.set(pathNode.id);
+            private ArrayList<TrieNode> advance(){
+                if(!started){
+                    started = true;
+                    if(rootNode.children.isEmpty()){
+                        return null;
                     }
-                    //check children
-                    else{
-                        boolean allChildrenVisited = true;
-                        for (TrieNode child : pathNode.children) {
-                            if(!visited.get(child.id)){
-                                allChildrenVisited = false;
-                                break;
-                            }
-                        }
-                        if(allChildrenVisited){
-                            visited.set(pathNode.id);
+                    push(rootNode);
+                }
+                else{
+                    //go back up until we find a node with children left to visit
+                    TrieNode popped = null;
+                    while(!path.isEmpty()){
+                        int depth = path.size() - 1;
+                        ArrayList<TrieNode> children = path.get(depth).children;
+                        //case: children were removed while iterating (see TrieIterator.unParent),
+                        //so find where the child we just came back from is now
+                        int next = cursors[depth];
+                        if(popped != null && (next > children.size() || children.get(next - 1) != popped)){
+                            int idx = children.indexOf(popped);
+                            next = (idx == -1) ? next - 1 : idx + 1;
+                            cursors[depth] = next;
                         }
-                        else{
+                        if(next < children.size()){
                             break;
                         }
+                        popped = path.remove(depth);
                     }
+                    if(path.isEmpty()){
+                        return null;
+                    }
+                }
+
+                //now go down, always taking the next unvisited child, until we hit a leaf
+                TrieNode node = path.get(path.size() - 1);
+                while(!node.children.isEmpty()){
+                    int depth = path.size() - 1;
+                    node = node.children.get(cursors[depth]++);
+                    push(node);
                 }
 
                 //copy path and remove first(root) node
@@ -372,19 +363,19 @@ public class Trie<T> {
     }
 
     void unMark(TrieNode node){
-        this.markedNodes.clear(node.id);
+        node.marked = false;
     }
 
     void lock(TrieNode node){
-        this.lockedNodes.set(node.id);
+        node.lockStamp = lockGeneration;
     }
 
     void mark(TrieNode node){
-        this.markedNodes.set(node.id);
+        node.marked = true;
     }
 
     boolean isMarked(TrieNode node){
-        return markedNodes.get(node.id);
+        return node.marked;
     }
 
     protected TrieNode createNode(T value){
@@ -392,7 +383,7 @@ public class Trie<T> {
     }
 
     private boolean isLocked(TrieNode node){
-        return lockedNodes.get(node.id);
+        return node.lockStamp == lockGeneration;
     }
 
     /**
@@ -401,19 +392,53 @@ public class Trie<T> {
     class TrieNode{
 
         private final ArrayList<TrieNode> children;
-        private final int id;
+        //built lazily once the node has many children, the list above still keeps insertion order
+        private HashMap<T, TrieNode> childIndex = null;
         //implicitly there is no empty nodes in this Trie model
         private int count = 1;
         private final T value;
+        //the lock generation this node was locked in (see Trie.lockGeneration)
+        private int lockStamp = 0;
+        private boolean marked = false;
 
         TrieNode(T value){
-            this.id = idGen++;
             this.value = value;
             this.children = new ArrayList<>(0);
         }
 
+        TrieNode getChild(T childValue){
+            if(childIndex != null){
+                return childIndex.get(childValue);
+            }
+            for (TrieNode child : children) {
+                if(child.value.equals(childValue)){
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        void addChild(TrieNode child){
+            this.children.add(child);
+            if(childIndex != null){
+                childIndex.put(child.value, child);
+            }
+            else if(children.size() > CHILD_INDEX_THRESHOLD){
+                childIndex = new HashMap<>(children.size() * 2);
+                for (TrieNode existing : children) {
+                    childIndex.put(existing.value, existing);
+                }
+            }
+        }
+
         public boolean removeChild(TrieNode child){
-            return this.children.remove(child);
+            boolean removed = this.children.remove(child);
+            if(removed){
+                if(childIndex != null){
+                    childIndex.remove(child.value);
+                }
+            }
+            return removed;
         }
 
         public int getCount() {
@@ -428,23 +453,8 @@ public class Trie<T> {
         public String toString() {
             return "TrieNode{value=" + value +
                     "|count=" + count +
-                    (markedNodes.get(id) ? "|marked" : "|unmarked") +
-                    (lockedNodes.get(id) ? "|locked}" : "|unlocked}");
-        }
-
-
-        @Override
-        @SuppressWarnings("unchecked")
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            TrieNode trieNode = (TrieNode) o;
-            return id == trieNode.id;
-        }
-
-        @Override
-        public int hashCode() {
-            return id;
+                    (marked ? "|marked" : "|unmarked") +
+                    (isLocked(this) ? "|locked}" : "|unlocked}");
         }
     }
 
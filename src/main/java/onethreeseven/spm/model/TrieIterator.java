@@ -25,7 +25,7 @@ public class TrieIterator<T> implements Iterator<ArrayList<T>> {
 
     @Override
     public boolean hasNext() {
-        return pathIter.hasNext() || !currentPatten.isEmpty();
+        return (currentPatten != null && !currentPatten.isEmpty()) || pathIter.hasNext();
     }
 
     @Override
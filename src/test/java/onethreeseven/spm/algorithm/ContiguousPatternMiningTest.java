@@ -1,11 +1,17 @@
 package onethreeseven.spm.algorithm;
 
+import onethreeseven.spm.data.BinarySequenceWriter;
+import onethreeseven.spm.data.ContiguousSPMFGenerator;
+import onethreeseven.spm.data.MappedSequenceDb;
+import onethreeseven.spm.data.SPMFSequenceSource;
+import onethreeseven.spm.data.SequenceSource;
 import onethreeseven.spm.model.IPatternClosure;
 import onethreeseven.spm.model.SequentialPattern;
-import onethreeseven.spm.model.Trie;
-import onethreeseven.spm.model.TrieIterator;
+import onethreeseven.spm.model.IntTrie;
+import onethreeseven.spm.model.IntTrieIterator;
 import org.junit.Assert;
 import org.junit.Test;
+import java.io.File;
 import java.util.*;
 
 /**
@@ -28,7 +34,7 @@ public class ContiguousPatternMiningTest {
         AbstractContiguousSPM algo = new AbstractContiguousSPM() {
 
             @Override
-            public Trie<Integer> populateTrie(int[][] sequences, int minSupAbs) {
+            public IntTrie populateTrie(int[][] sequences, int minSupAbs) {
                 isRunning.set(true);
                 return super.populateTrie(sequences, minSupAbs);
             }
@@ -49,20 +55,20 @@ public class ContiguousPatternMiningTest {
             }
 
             @Override
-            protected boolean addToOutput(ArrayList<Integer> pattern, TrieIterator<Integer> patternIter) {
+            protected boolean addToOutput(IntTrieIterator patternIter) {
                 return false;
             }
         };
 
-        Trie<Integer> t = algo.populateTrie(db, 2);
+        IntTrie t = algo.populateTrie(db, 2);
 
-        Assert.assertTrue(t.getFrequencyOf(new Integer[]{3}) == 4);
-        Assert.assertTrue(t.getFrequencyOf(new Integer[]{1}) == 4);
-        Assert.assertTrue(t.getFrequencyOf(new Integer[]{2}) == 4);
-        Assert.assertTrue(t.getFrequencyOf(new Integer[]{3,1}) == 3);
-        Assert.assertTrue(t.getFrequencyOf(new Integer[]{1,2}) == 4);
-        Assert.assertTrue(t.getFrequencyOf(new Integer[]{2,3}) == 4);
-        Assert.assertTrue(t.getFrequencyOf(new Integer[]{1,2,3}) == 3);
+        Assert.assertTrue(t.getFrequencyOf(new int[]{3}) == 4);
+        Assert.assertTrue(t.getFrequencyOf(new int[]{1}) == 4);
+        Assert.assertTrue(t.getFrequencyOf(new int[]{2}) == 4);
+        Assert.assertTrue(t.getFrequencyOf(new int[]{3,1}) == 3);
+        Assert.assertTrue(t.getFrequencyOf(new int[]{1,2}) == 4);
+        Assert.assertTrue(t.getFrequencyOf(new int[]{2,3}) == 4);
+        Assert.assertTrue(t.getFrequencyOf(new int[]{1,2,3}) == 3);
     }
 
     @Test
@@ -146,4 +152,116 @@ public class ContiguousPatternMiningTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testParallelMatchesSerial(){
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(200);
+        gen.setSequenceLength(50);
+        gen.setnDistinctItems(30);
+        final int[][] sequences = gen.generateSequences();
+
+        AbstractContiguousSPM[] algos = new AbstractContiguousSPM[]{new ACSpan(), new CCSpan(), new MCSpan()};
+        for (AbstractContiguousSPM algo : algos) {
+            SPMParameters params = new SPMParameters(sequences, 5);
+            final Collection<SequentialPattern> serialPatterns = algo.run(params);
+            params.setNThreads(4);
+            final Collection<SequentialPattern> parallelPatterns = algo.run(params);
+            //same patterns, in the same order
+            Assert.assertFalse(serialPatterns.isEmpty());
+            Assert.assertEquals(new ArrayList<>(serialPatterns), new ArrayList<>(parallelPatterns));
+        }
+    }
+
+    @Test
+    public void testTopKMatchesAll(){
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(200);
+        gen.setSequenceLength(50);
+        gen.setnDistinctItems(30);
+        final int[][] sequences = gen.generateSequences();
+
+        //every pattern, most frequent first
+        List<SequentialPattern> all = new ArrayList<>(new ACSpan().run(new SPMParameters(sequences, 1)));
+        all.sort((a, b) -> Integer.compare(b.getSupport(), a.getSupport()));
+
+        for (int topK : new int[]{1, 10, 100, 1000}) {
+            //the top-k is every pattern at least as frequent as the k-th
+            int kthSupport = all.get(topK - 1).getSupport();
+            List<SequentialPattern> expected = new ArrayList<>(new ACSpan().run(new SPMParameters(sequences, kthSupport)));
+            Assert.assertTrue(expected.size() >= topK);
+            for (int nThreads : new int[]{1, 4}) {
+                SPMParameters params = new SPMParameters(sequences, 1);
+                params.setTopK(topK);
+                params.setNThreads(nThreads);
+                Assert.assertEquals(expected, new ArrayList<>(new TKCSpan().run(params)));
+            }
+        }
+    }
+
+    @Test
+    public void testSuffixArrayMatchesTrie(){
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(200);
+        gen.setSequenceLength(50);
+        gen.setnDistinctItems(30);
+        final int[][] generated = gen.generateSequences();
+
+        //short random sequences with a small alphabet, including some empty ones
+        Random rand = new Random(137);
+        final int[][] random = new int[100][];
+        for (int i = 0; i < random.length; i++) {
+            random[i] = new int[rand.nextInt(12)];
+            for (int j = 0; j < random[i].length; j++) {
+                random[i][j] = rand.nextInt(4) * 7 - 3;
+            }
+        }
+
+        AbstractContiguousSPM[] trieAlgos = new AbstractContiguousSPM[]{new ACSpan(), new CCSpan(), new MCSpan()};
+        AbstractSuffixArraySPM[] saAlgos = new AbstractSuffixArraySPM[]{new ACSpanSA(), new CCSpanSA(), new MCSpanSA()};
+        for (int[][] sequences : new int[][][]{db, generated, random}) {
+            for (int minSup : new int[]{1, 2, 5}) {
+                for (int i = 0; i < trieAlgos.length; i++) {
+                    SPMParameters params = new SPMParameters(sequences, minSup);
+                    Set<SequentialPattern> expected = new HashSet<>(trieAlgos[i].run(params));
+                    Collection<SequentialPattern> actual = saAlgos[i].run(params);
+                    Assert.assertEquals(expected.size(), actual.size());
+                    Assert.assertEquals(expected, new HashSet<>(actual));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStreamedSourcesMatchInMemory() throws Exception {
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(2000);
+        gen.setSequenceLength(50);
+        gen.setnDistinctItems(30);
+        File spmfFile = File.createTempFile("sequences", ".spmf");
+        File binFile = File.createTempFile("sequences", ".bin");
+        spmfFile.deleteOnExit();
+        binFile.deleteOnExit();
+        final int[][] sequences = gen.generate(spmfFile);
+        Assert.assertTrue(BinarySequenceWriter.write(binFile, sequences));
+
+        try(MappedSequenceDb mapped = new MappedSequenceDb(binFile)){
+            SequenceSource[] sources = new SequenceSource[]{new SPMFSequenceSource(spmfFile), mapped};
+            SPMAlgorithm[] algos = new SPMAlgorithm[]{new ACSpan(), new CCSpan(), new MCSpan(), new DCSpan()};
+            for (SPMAlgorithm algo : algos) {
+                SPMParameters inMemoryParams = new SPMParameters(sequences, 20);
+                inMemoryParams.setMaxRedund(0.5);
+                List<SequentialPattern> expected = new ArrayList<>(algo.run(inMemoryParams));
+                Assert.assertFalse(expected.isEmpty());
+                for (SequenceSource source : sources) {
+                    for (int nThreads : new int[]{1, 4}) {
+                        SPMParameters params = new SPMParameters(source, 20);
+                        params.setMaxRedund(0.5);
+                        params.setNThreads(nThreads);
+                        Assert.assertEquals(expected, new ArrayList<>(algo.run(params)));
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -1,9 +1,16 @@
 package onethreeseven.spm.algorithm;
 
+import onethreeseven.spm.model.CoveredSequentialPattern;
 import onethreeseven.spm.model.SequentialPattern;
 import org.junit.Assert;
 import org.junit.Test;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Test {@link DCSpan}.
@@ -45,4 +52,80 @@ public class DCSpanTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testIncrementalCover() {
+
+        final int minSup = 2;
+
+        SPMParameters params = new SPMParameters(seqDb, minSup);
+        params.setMaxRedund(1);
+        params.setIncrementalCover(true);
+
+        Collection<SequentialPattern> subset = new DCSpan().run(params);
+        Assert.assertFalse(subset.isEmpty());
+
+        //the cover of every adjacent pair in the sequence db
+        Map<List<Integer>, Integer> pairCovers = new HashMap<>();
+        for (int[] seq : seqDb) {
+            for (int i = 0; i < seq.length - 1; i++) {
+                pairCovers.merge(List.of(seq[i], seq[i+1]), 1, Integer::sum);
+            }
+        }
+
+        //each reported cover should be the cover of the pairs not already used by an earlier pattern
+        Set<List<Integer>> usedPairs = new HashSet<>();
+        int prevCover = Integer.MAX_VALUE;
+        for (SequentialPattern pattern : subset) {
+            int[] seq = pattern.getSequence();
+            int expectedCover = 0;
+            for (int i = 0; i < seq.length - 1; i++) {
+                List<Integer> pair = List.of(seq[i], seq[i+1]);
+                if(usedPairs.add(pair)){
+                    expectedCover += pairCovers.get(pair);
+                }
+            }
+            int cover = ((CoveredSequentialPattern) pattern).getCover();
+            Assert.assertEquals(expectedCover, cover);
+            Assert.assertTrue(cover > 1);
+            Assert.assertTrue(cover <= prevCover);
+            prevCover = cover;
+        }
+    }
+
+
+    @Test
+    public void testProgressReports() {
+
+        SPMParameters params = new SPMParameters(seqDb, 2);
+        params.setMaxRedund(1);
+
+        List<MiningMetrics> reports = new ArrayList<>();
+        DCSpan algo = new DCSpan();
+        algo.setListener(reports::add);
+        Collection<SequentialPattern> subset = algo.run(params);
+
+        //the inner miner reports its levels in order, then DCSpan indexes and selects
+        int prevLevel = 0;
+        List<String> phases = new ArrayList<>();
+        for (MiningMetrics report : reports) {
+            Assert.assertTrue(report.getElapsedMillis() >= 0);
+            Assert.assertTrue(report.getHeapUsedBytes() > 0);
+            if(report.getPhase().equals("level")){
+                Assert.assertTrue(report.getLevel() > prevLevel);
+                Assert.assertTrue(report.getPatterns() <= report.getCandidates());
+                Assert.assertTrue(report.getTrieNodes() >= 0);
+                prevLevel = report.getLevel();
+            }
+            if(phases.isEmpty() || !phases.get(phases.size() - 1).equals(report.getPhase())){
+                phases.add(report.getPhase());
+            }
+        }
+        Assert.assertTrue(prevLevel > 1);
+        Assert.assertEquals(List.of("level", "output", "index", "select"), phases);
+
+        MiningMetrics last = reports.get(reports.size() - 1);
+        Assert.assertEquals(subset.size(), last.getPatterns());
+        Assert.assertTrue(last.getIterations() >= subset.size());
+        Assert.assertTrue(last.toJson().startsWith("{\"algorithm\":\"dcspan\""));
+    }
+}
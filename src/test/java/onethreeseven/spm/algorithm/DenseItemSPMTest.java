@@ -0,0 +1,152 @@
+package onethreeseven.spm.algorithm;
+
+import onethreeseven.spm.data.ArraySequenceSource;
+import onethreeseven.spm.data.ContiguousSPMFGenerator;
+import onethreeseven.spm.data.PackedSequenceDb;
+import onethreeseven.spm.data.SPMFParser;
+import onethreeseven.spm.data.SequenceSource;
+import onethreeseven.spm.model.SequentialPattern;
+import org.junit.Assert;
+import org.junit.Test;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test {@link DenseItemMapper} and {@link DenseItemSPM}.
+ * @author Luke Bermingham
+ */
+public class DenseItemSPMTest {
+
+    /**
+     * Sequences with sparse item ids and some items that are in only one sequence.
+     */
+    private static int[][] sparseSequences(){
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(200);
+        gen.setSequenceLength(40);
+        gen.setnDistinctItems(30);
+        int[][] sequences = gen.generateSequences();
+        Random rand = new Random(137);
+        int rareItem = 20000000;
+        for (int[] sequence : sequences) {
+            for (int i = 0; i < sequence.length; i++) {
+                sequence[i] = (rand.nextInt(20) == 0) ? rareItem++ : sequence[i] * 331337 + 5;
+            }
+        }
+        return sequences;
+    }
+
+    private static Set<SequentialPattern> mine(SPMAlgorithm algo, int[][] sequences, int minSup){
+        SPMParameters params = new SPMParameters(sequences, minSup);
+        params.setTopK(25);
+        return new HashSet<>(algo.run(params));
+    }
+
+    @Test
+    public void testMapper() {
+        int[][] sequences = new int[][]{
+                {900, 5, 5, 7},
+                {5, 7, 42},
+                {7, 5, -3},
+                {-3}
+        };
+        DenseItemMapper mapper = new DenseItemMapper(new ArraySequenceSource(sequences), 2);
+        Assert.assertEquals(5, mapper.getNumDistinctItems());
+        Assert.assertEquals(3, mapper.getNumDenseItems());
+        //supports: 5 -> 3, 7 -> 3, -3 -> 2, ties are ordered by item
+        Assert.assertEquals(0, mapper.toDense(5));
+        Assert.assertEquals(1, mapper.toDense(7));
+        Assert.assertEquals(2, mapper.toDense(-3));
+        Assert.assertEquals(-1, mapper.toDense(900));
+        Assert.assertEquals(-3, mapper.toOriginal(2));
+        Assert.assertArrayEquals(new int[]{7, 5, -3}, mapper.toOriginal(new int[]{1, 0, 2}));
+
+        //infrequent items become gap items, each shared by at most minSup - 1 sequences
+        int[][] dense = mapper.toDense(new ArraySequenceSource(sequences)).toArray();
+        Assert.assertArrayEquals(new int[][]{
+                {-1, 0, 0, 1},
+                {0, 1, -2},
+                {1, 0, 2},
+                {2}
+        }, dense);
+
+        //a streamed source is mapped as it is scanned, through one buffer
+        SequenceSource streamed = mapper.toDense(new SequenceSource() {
+            @Override
+            public int size() {
+                return sequences.length;
+            }
+
+            @Override
+            public Iterator<int[]> iterator() {
+                return Arrays.asList(sequences).iterator();
+            }
+        });
+        final List<int[]> scanned = new ArrayList<>();
+        streamed.scan((items, length) -> {
+            scanned.add(Arrays.copyOf(items, length));
+            return scanned.size() < 3;
+        });
+        Assert.assertArrayEquals(Arrays.copyOf(dense, 3), scanned.toArray(new int[0][]));
+    }
+
+    @Test
+    public void testSamePatterns() {
+        int[][] sequences = sparseSequences();
+        SPMAlgorithm[] algos = new SPMAlgorithm[]{
+                new ACSpan(), new CCSpan(), new MCSpan(), new TKCSpan(), new DCSpan(),
+                new ACSpanSA(), new CCSpanSA(), new MCSpanSA()
+        };
+        for (int minSup : new int[]{2, 5}) {
+            for (SPMAlgorithm algo : algos) {
+                Set<SequentialPattern> expected = mine(algo, sequences, minSup);
+                Assert.assertFalse(expected.isEmpty());
+                Assert.assertEquals(algo.toString(), expected, mine(new DenseItemSPM(algo), sequences, minSup));
+            }
+        }
+    }
+
+    @Test
+    public void testPackedAndFileOutput() throws Exception {
+        int[][] sequences = sparseSequences();
+        File expectedFile = File.createTempFile("patterns", ".txt");
+        File actualFile = File.createTempFile("patterns", ".txt");
+        expectedFile.deleteOnExit();
+        actualFile.deleteOnExit();
+        //the text writer appends, so start from empty files
+        Assert.assertTrue(expectedFile.delete());
+        Assert.assertTrue(actualFile.delete());
+
+        for (SPMAlgorithm algo : new SPMAlgorithm[]{new CCSpan(), new DCSpan()}) {
+            SPMParameters params = new SPMParameters(sequences, 3);
+            params.setOutFile(expectedFile);
+            algo.run(params);
+
+            params = new SPMParameters(new PackedSequenceDb(new ArraySequenceSource(sequences)), 3);
+            params.setOutFile(actualFile);
+            new DenseItemSPM(algo).run(params);
+
+            List<SequentialPattern> expected = new SPMFParser().parsePatterns(expectedFile);
+            Assert.assertFalse(expected.isEmpty());
+            Assert.assertEquals(new HashSet<>(expected), new HashSet<>(new SPMFParser().parsePatterns(actualFile)));
+            Assert.assertTrue(expectedFile.delete());
+            Assert.assertTrue(actualFile.delete());
+        }
+    }
+
+    @Test
+    public void testStopIsForwarded() {
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        SPMAlgorithm inner = new ACSpan(){
+            @Override
+            public void stop() {
+                stopped.set(true);
+                super.stop();
+            }
+        };
+        new DenseItemSPM(inner).stop();
+        Assert.assertTrue(stopped.get());
+    }
+
+}
@@ -0,0 +1,90 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.model.CoveredSequentialPattern;
+import onethreeseven.spm.model.SequentialPattern;
+import org.junit.Assert;
+import org.junit.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Test {@link AsyncPatternWriter}.
+ * @author Luke Bermingham
+ */
+public class AsyncPatternWriterTest {
+
+    @Test
+    public void testSameAsSequentialWriter() throws Exception {
+        File asyncFile = File.createTempFile("patterns", ".txt");
+        File syncFile = File.createTempFile("patterns", ".txt");
+        asyncFile.deleteOnExit();
+        syncFile.deleteOnExit();
+
+        //a tiny ring buffer, so the producer often has to wait for the writer
+        AsyncPatternWriter async = new AsyncPatternWriter(new SequentialPatternWriter(asyncFile), 7);
+        SequentialPatternWriter sync = new SequentialPatternWriter(syncFile);
+        Random rand = new Random(137);
+        for (int i = 0; i < 100000; i++) {
+            int[] sequence = new int[1 + rand.nextInt(6)];
+            for (int j = 0; j < sequence.length; j++) {
+                sequence[j] = rand.nextInt(1000);
+            }
+            int support = rand.nextInt(100);
+            if(i % 3 == 0){
+                SequentialPattern pattern = new CoveredSequentialPattern(sequence, support, support * 2);
+                async.write(pattern);
+                sync.write(pattern);
+            }else{
+                async.write(sequence, support);
+                sync.write(sequence, support);
+            }
+        }
+        async.close();
+        sync.close();
+
+        //everything is written, in order, once close returns
+        Assert.assertArrayEquals(Files.readAllBytes(syncFile.toPath()), Files.readAllBytes(asyncFile.toPath()));
+    }
+
+    @Test
+    public void testEmptyAndClosedTwice() throws Exception {
+        File file = File.createTempFile("patterns", ".txt");
+        file.deleteOnExit();
+        AsyncPatternWriter writer = new AsyncPatternWriter(file);
+        writer.close();
+        writer.close();
+        Assert.assertEquals(0, file.length());
+
+        //writing after close is dropped rather than blocking
+        writer.write(new int[]{1, 2}, 3);
+        Assert.assertEquals(0, file.length());
+    }
+
+    @Test(timeout = 10000)
+    public void testWriterThreadDies() throws Exception {
+        //a writer that dies of an Error rather than an exception
+        PatternWriter broken = new PatternWriter() {
+            @Override
+            public void write(SequentialPattern pattern) {
+                throw new Error("Writer failed.");
+            }
+
+            @Override
+            public void write(int[] sequence, int support) {
+                throw new Error("Writer failed.");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AsyncPatternWriter writer = new AsyncPatternWriter(broken, 1);
+        //more patterns than the buffer holds, so these would block forever if the failure was missed
+        for (int i = 0; i < 1000; i++) {
+            writer.write(new int[]{i}, 1);
+        }
+        writer.close();
+    }
+
+}
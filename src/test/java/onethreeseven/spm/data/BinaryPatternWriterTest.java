@@ -0,0 +1,104 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.algorithm.ACSpan;
+import onethreeseven.spm.algorithm.CCSpan;
+import onethreeseven.spm.algorithm.PatternsLossinessCalculator;
+import onethreeseven.spm.algorithm.SPMParameters;
+import onethreeseven.spm.model.CoveredSequentialPattern;
+import onethreeseven.spm.model.SequentialPattern;
+import org.junit.Assert;
+import org.junit.Test;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test {@link BinaryPatternWriter} and {@link BinaryPatternReader}.
+ * @author Luke Bermingham
+ */
+public class BinaryPatternWriterTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = File.createTempFile("patterns", ".bin");
+        file.deleteOnExit();
+
+        Random rand = new Random(137);
+        List<SequentialPattern> patterns = new ArrayList<>();
+        patterns.add(new SequentialPattern(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 0}, -1));
+        patterns.add(new SequentialPattern(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE}, 3));
+        patterns.add(new SequentialPattern(new int[0], 0));
+        patterns.add(new CoveredSequentialPattern(new int[]{35244, 35246, 32297}, 6, 12));
+        //patterns sharing prefixes of all lengths, like they come out of a Trie
+        int[] prev = new int[0];
+        for (int i = 0; i < 50000; i++) {
+            int shared = rand.nextInt(prev.length + 1);
+            int[] sequence = new int[shared + rand.nextInt(5)];
+            System.arraycopy(prev, 0, sequence, 0, shared);
+            for (int j = shared; j < sequence.length; j++) {
+                sequence[j] = rand.nextInt(10000000);
+            }
+            patterns.add(new SequentialPattern(sequence, rand.nextInt(1000)));
+            prev = sequence;
+        }
+
+        BinaryPatternWriter writer = new BinaryPatternWriter(file);
+        for (SequentialPattern pattern : patterns) {
+            writer.write(pattern);
+        }
+        writer.close();
+
+        Assert.assertTrue(BinaryPatternReader.isBinaryPatternFile(file));
+        PatternReader reader = PatternReader.open(file);
+        Assert.assertTrue(reader instanceof BinaryPatternReader);
+        for (SequentialPattern expected : patterns) {
+            Assert.assertTrue(reader.advance());
+            Assert.assertArrayEquals(expected.getSequence(), reader.getPattern());
+            Assert.assertEquals(expected.getSupport(), reader.getSupport());
+            int cover = (expected instanceof CoveredSequentialPattern) ? ((CoveredSequentialPattern) expected).getCover() : -1;
+            Assert.assertEquals(cover, reader.getCover());
+        }
+        Assert.assertFalse(reader.advance());
+        reader.close();
+
+        Assert.assertEquals(patterns, new SPMFParser().parsePatterns(file));
+    }
+
+    @Test
+    public void testMinedOutputMatchesText() throws Exception {
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(200);
+        gen.setSequenceLength(50);
+        gen.setnDistinctItems(30);
+        final int[][] sequences = gen.generateSequences();
+
+        File textFile = File.createTempFile("patterns", ".txt");
+        File binFile = File.createTempFile("patterns", ".bin");
+        File closedFile = File.createTempFile("patterns", ".bin");
+        textFile.deleteOnExit();
+        binFile.deleteOnExit();
+        closedFile.deleteOnExit();
+        //the text writer appends, so start from an empty file
+        Assert.assertTrue(textFile.delete());
+
+        SPMParameters params = new SPMParameters(sequences, 2);
+        params.setOutFile(textFile);
+        new ACSpan().run(params);
+        params.setOutFile(binFile);
+        params.setBinaryOutput(true);
+        new ACSpan().run(params);
+
+        List<SequentialPattern> expected = new SPMFParser().parsePatterns(textFile);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, new SPMFParser().parsePatterns(binFile));
+        Assert.assertTrue(binFile.length() < textFile.length());
+
+        //either format can be used to compare outputs
+        params.setOutFile(closedFile);
+        new CCSpan().run(params);
+        Assert.assertEquals(0, new PatternsLossinessCalculator().run(closedFile, textFile), 1e-9);
+        Assert.assertEquals(0, new PatternsLossinessCalculator().run(closedFile, binFile), 1e-9);
+    }
+
+}
@@ -0,0 +1,97 @@
+package onethreeseven.spm.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Test {@link MappedSequenceDb} and {@link BinarySequenceWriter}.
+ * @author Luke Bermingham
+ */
+public class MappedSequenceDbTest {
+
+    private static int[][] randomSequences(){
+        Random rand = new Random(137);
+        int[][] sequences = new int[500][];
+        for (int i = 0; i < sequences.length; i++) {
+            //include some empty sequences
+            sequences[i] = new int[rand.nextInt(50)];
+            for (int j = 0; j < sequences[i].length; j++) {
+                sequences[i][j] = rand.nextInt(100000);
+            }
+        }
+        return sequences;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        int[][] expected = randomSequences();
+        File binFile = File.createTempFile("sequences", ".bin");
+        binFile.deleteOnExit();
+        Assert.assertTrue(BinarySequenceWriter.write(binFile, expected));
+        Assert.assertTrue(MappedSequenceDb.isBinarySequenceDb(binFile));
+
+        try(MappedSequenceDb db = new MappedSequenceDb(binFile)){
+            Assert.assertEquals(expected.length, db.size());
+            long nItems = 0;
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(expected[i].length, db.length(i));
+                Assert.assertArrayEquals(expected[i], db.getSequence(i));
+                nItems += expected[i].length;
+            }
+            Assert.assertEquals(nItems, db.getNumItems());
+
+            //iteration order matches
+            List<int[]> iterated = new ArrayList<>();
+            for (int[] sequence : db) {
+                iterated.add(sequence);
+            }
+            Assert.assertArrayEquals(expected, iterated.toArray(new int[0][]));
+        }
+    }
+
+    @Test
+    public void testScanReusesBuffer() throws Exception {
+        int[][] expected = randomSequences();
+        File binFile = File.createTempFile("sequences", ".bin");
+        binFile.deleteOnExit();
+        Assert.assertTrue(BinarySequenceWriter.write(binFile, expected));
+
+        try(MappedSequenceDb db = new MappedSequenceDb(binFile)){
+            final List<int[]> scanned = new ArrayList<>();
+            final Set<int[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+            db.scan((items, length) -> {
+                scanned.add(Arrays.copyOf(items, length));
+                buffers.add(items);
+                return true;
+            });
+            Assert.assertArrayEquals(expected, scanned.toArray(new int[0][]));
+            //the buffer only grows for longer sequences, it is not made per sequence
+            Assert.assertTrue(buffers.size() < 10);
+
+            //the scan stops when asked to
+            final int[] nVisited = new int[1];
+            db.scan((items, length) -> ++nVisited[0] < 3);
+            Assert.assertEquals(3, nVisited[0]);
+        }
+    }
+
+    @Test
+    public void testConvertSPMF() throws Exception {
+        int[][] expected = randomSequences();
+        File spmfFile = File.createTempFile("sequences", ".txt");
+        File binFile = File.createTempFile("sequences", ".bin");
+        spmfFile.deleteOnExit();
+        binFile.deleteOnExit();
+        new SPMFWriter().write(spmfFile, expected);
+        Assert.assertFalse(MappedSequenceDb.isBinarySequenceDb(spmfFile));
+
+        Assert.assertEquals(expected.length, BinarySequenceWriter.convert(spmfFile, binFile));
+        try(MappedSequenceDb db = new MappedSequenceDb(binFile)){
+            Assert.assertArrayEquals(new SPMFParser().parseSequences(spmfFile), db.toArray());
+        }
+    }
+
+}
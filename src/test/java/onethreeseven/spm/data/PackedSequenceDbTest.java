@@ -0,0 +1,133 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.algorithm.ACSpan;
+import onethreeseven.spm.algorithm.SPMParameters;
+import onethreeseven.spm.algorithm.SequenceDbStatsCalculator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test {@link PackedSequenceDb}.
+ * @author Luke Bermingham
+ */
+public class PackedSequenceDbTest {
+
+    private static int[][] randomSequences(int minItem, int itemRange, int nDistinct){
+        Random rand = new Random(137);
+        int[] items = new int[nDistinct];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = minItem + rand.nextInt(itemRange);
+        }
+        int[][] sequences = new int[500][];
+        for (int i = 0; i < sequences.length; i++) {
+            //include some empty sequences
+            sequences[i] = new int[rand.nextInt(50)];
+            for (int j = 0; j < sequences[i].length; j++) {
+                sequences[i][j] = items[rand.nextInt(items.length)];
+            }
+        }
+        return sequences;
+    }
+
+    private static void assertSame(int[][] expected, PackedSequenceDb db){
+        Assert.assertEquals(expected.length, db.size());
+        long nItems = 0;
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i].length, db.length(i));
+            Assert.assertArrayEquals(expected[i], db.getSequence(i));
+            for (int j = 0; j < expected[i].length; j++) {
+                Assert.assertEquals(expected[i][j], db.get(i, j));
+            }
+            nItems += expected[i].length;
+        }
+        Assert.assertEquals(nItems, db.getNumItems());
+
+        //iteration order matches
+        List<int[]> iterated = new ArrayList<>();
+        for (int[] sequence : db) {
+            iterated.add(sequence);
+        }
+        Assert.assertArrayEquals(expected, iterated.toArray(new int[0][]));
+
+        //scanning through the buffer matches too, and can stop early
+        final List<int[]> scanned = new ArrayList<>();
+        final int stopAt = Math.min(expected.length, 10);
+        db.scan((items, length) -> {
+            scanned.add(Arrays.copyOf(items, length));
+            return scanned.size() < stopAt;
+        });
+        Assert.assertArrayEquals(Arrays.copyOf(expected, stopAt), scanned.toArray(new int[0][]));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        //sparse ids, so the dictionary is used
+        int[][] sparse = randomSequences(0, 10000000, 1000);
+        PackedSequenceDb db = new PackedSequenceDb(new ArraySequenceSource(sparse));
+        Assert.assertTrue(db.usesDictionary());
+        Assert.assertEquals(10, db.getBitsPerItem());
+        assertSame(sparse, db);
+
+        db = new PackedSequenceDb(new ArraySequenceSource(sparse), false);
+        Assert.assertFalse(db.usesDictionary());
+        Assert.assertEquals(24, db.getBitsPerItem());
+        assertSame(sparse, db);
+
+        //negative ids and bit widths that do not divide 64
+        int[][] negative = randomSequences(-50, 100, 100);
+        db = new PackedSequenceDb(new ArraySequenceSource(negative), false);
+        Assert.assertEquals(7, db.getBitsPerItem());
+        assertSame(negative, db);
+    }
+
+    @Test
+    public void testExtremes() {
+        int[][] expected = new int[][]{
+                {Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1},
+                {},
+                {Integer.MAX_VALUE, Integer.MAX_VALUE, 1, Integer.MIN_VALUE, 7}
+        };
+        PackedSequenceDb db = new PackedSequenceDb(new ArraySequenceSource(expected));
+        Assert.assertFalse(db.usesDictionary());
+        Assert.assertEquals(32, db.getBitsPerItem());
+        assertSame(expected, db);
+
+        //every item the same
+        expected = new int[][]{{5, 5, 5}, {5}};
+        db = new PackedSequenceDb(new ArraySequenceSource(expected));
+        Assert.assertEquals(1, db.getBitsPerItem());
+        assertSame(expected, db);
+
+        expected = new int[][]{{}, {}};
+        assertSame(expected, new PackedSequenceDb(new ArraySequenceSource(expected)));
+    }
+
+    @Test
+    public void testStatsAndMining() {
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(200);
+        gen.setSequenceLength(50);
+        gen.setnDistinctItems(30);
+        final int[][] sequences = gen.generateSequences();
+        PackedSequenceDb db = new PackedSequenceDb(new ArraySequenceSource(sequences));
+        Assert.assertTrue(db.getSizeInBytes() < sequences.length * 50L * Integer.BYTES);
+
+        SequenceDbStatsCalculator expected = new SequenceDbStatsCalculator();
+        expected.calculate(sequences);
+        SequenceDbStatsCalculator actual = new SequenceDbStatsCalculator();
+        actual.calculate(db);
+        Assert.assertEquals(expected.getTotalSequences(), actual.getTotalSequences());
+        Assert.assertEquals(expected.getTotalItems(), actual.getTotalItems());
+        Assert.assertEquals(expected.getnDistinctItems(), actual.getnDistinctItems());
+        Assert.assertEquals(expected.getRedundancy(), actual.getRedundancy(), 1e-9);
+
+        Assert.assertEquals(new ACSpan().run(new SPMParameters(sequences, 2)),
+                new ACSpan().run(new SPMParameters(db, 2)));
+    }
+
+}
@@ -0,0 +1,64 @@
+package onethreeseven.spm.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.util.Random;
+
+/**
+ * Test {@link ParallelSPMFLoader}
+ * @author Luke Bermingham
+ */
+public class ParallelSPMFLoaderTest {
+
+    private static int[][] expectedSequences(File spmfFile) throws Exception {
+        return new SPMFParser().parseSequences(new BufferedReader(new FileReader(spmfFile)));
+    }
+
+    @Test
+    public void testMatchesSerialParser() throws Exception {
+        Random rand = new Random(137);
+        int[][] sequences = new int[2000][];
+        for (int i = 0; i < sequences.length; i++) {
+            //include some empty sequences
+            sequences[i] = new int[rand.nextInt(30)];
+            for (int j = 0; j < sequences[i].length; j++) {
+                sequences[i][j] = rand.nextInt(1000);
+            }
+        }
+        File spmfFile = File.createTempFile("sequences", ".spmf");
+        spmfFile.deleteOnExit();
+        new SPMFWriter().write(spmfFile, sequences);
+
+        int[][] expected = expectedSequences(spmfFile);
+        //tiny chunks so the file is split at many line boundaries
+        for (int nThreads : new int[]{1, 2, 7}) {
+            int[][] actual = new ParallelSPMFLoader(nThreads, 64).load(spmfFile);
+            Assert.assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testWindowsLineEndings() throws Exception {
+        File spmfFile = File.createTempFile("sequences", ".spmf");
+        spmfFile.deleteOnExit();
+        try(FileWriter fw = new FileWriter(spmfFile)){
+            for (int i = 0; i < 500; i++) {
+                fw.write(i + " -1 " + (i + 1) + " -1 -2\r\n");
+                if(i % 10 == 0){
+                    fw.write("\r\n");
+                }
+            }
+        }
+        int[][] expected = expectedSequences(spmfFile);
+        Assert.assertEquals(500, expected.length);
+        for (int chunkBytes : new int[]{1, 13, 64}) {
+            Assert.assertArrayEquals(expected, new ParallelSPMFLoader(4, chunkBytes).load(spmfFile));
+        }
+    }
+
+}
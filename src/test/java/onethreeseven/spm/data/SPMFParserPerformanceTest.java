@@ -0,0 +1,60 @@
+package onethreeseven.spm.data;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+
+/**
+ * Compares the parse throughput of the line based {@link SPMFParser} (String splitting) against
+ * the byte-level {@link SPMFTokenizer} on a generated SPMF file.
+ * @author Luke Bermingham
+ */
+public class SPMFParserPerformanceTest {
+
+    private static File spmfFile;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        spmfFile = File.createTempFile("perf", ".spmf");
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(20000);
+        gen.setSequenceLength(100);
+        gen.setnDistinctItems(100000);
+        gen.generate(spmfFile);
+    }
+
+    @AfterClass
+    public static void tearDown(){
+        spmfFile.delete();
+    }
+
+    private static double megabytesPerSecond(long nanos){
+        return (spmfFile.length() / 1e6) / (nanos / 1e9);
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        int[][] expected = null;
+        int[][] actual = null;
+        //a few rounds so the jit has warmed up by the last one
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            expected = new SPMFParser().parseSequences(new BufferedReader(new FileReader(spmfFile)));
+            long lineNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            actual = new SPMFParser().parseSequences(spmfFile);
+            long byteNanos = System.nanoTime() - start;
+
+            System.out.println(String.format("SPMF parse throughput, line based: %.1f MB/s, byte-level: %.1f MB/s",
+                    megabytesPerSecond(lineNanos), megabytesPerSecond(byteNanos)));
+        }
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+}
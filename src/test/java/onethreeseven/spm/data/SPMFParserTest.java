@@ -8,6 +8,7 @@ import org.junit.Test;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
 
 /**
  * Test {@link SPMFParser}
@@ -72,4 +73,42 @@ public class SPMFParserTest {
         Assert.assertTrue( ((CoveredSequentialPattern)pattern).getCover() == 120);
     }
 
+    private static SPMFTokenizer tokenizerOf(String text){
+        return new SPMFTokenizer(Channels.newChannel(new ByteArrayInputStream(text.getBytes())));
+    }
+
+    @Test
+    public void testTokenizerMatchesParser() throws Exception {
+        String[] lines = new String[]{testLine, testLineNoSup, testLineWithSpaces, "0 -1 #SUP: 137",
+                "35244 35246 32297 #COVER:12 #SUP:6", "-5 -1 7 -1 -2"};
+        SPMFTokenizer tokenizer = tokenizerOf(String.join("\r\n", lines) + "\n\n");
+        for (String line : lines) {
+            Assert.assertTrue(tokenizer.advance());
+            SequentialPattern expected = SPMFParser.parsePattern(line, " ");
+            Assert.assertArrayEquals(expected.getSequence(), tokenizer.getItems());
+            Assert.assertEquals(expected.getSupport(), tokenizer.getSupport());
+            int expectedCover = (expected instanceof CoveredSequentialPattern) ?
+                    ((CoveredSequentialPattern) expected).getCover() : -1;
+            Assert.assertEquals(expectedCover, tokenizer.getCover());
+        }
+        Assert.assertFalse(tokenizer.advance());
+    }
+
+    @Test
+    public void testTokenizerSequences() throws Exception {
+        SPMFTokenizer tokenizer = tokenizerOf(mockSPMF);
+        InputStreamReader isr = new InputStreamReader(new ByteArrayInputStream(mockSPMF.getBytes()));
+        int[][] expected = new SPMFParser().parseSequences(new BufferedReader(isr));
+        for (int[] sequence : expected) {
+            Assert.assertTrue(tokenizer.advance());
+            Assert.assertArrayEquals(sequence, tokenizer.getItems());
+        }
+        Assert.assertFalse(tokenizer.advance());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testTokenizerRejectsNonInteger() throws Exception {
+        tokenizerOf("1 -1 2x -1 -2").advance();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package onethreeseven.spm.data;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import onethreeseven.spm.algorithm.SPMParameters;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test {@link SPMFSequenceSource}.
+ * @author Luke Bermingham
+ */
+public class SPMFSequenceSourceTest {
+
+    private final File spmfFile;
+    private final int[][] sequences;
+
+    public SPMFSequenceSourceTest() throws Exception {
+        ContiguousSPMFGenerator gen = new ContiguousSPMFGenerator();
+        gen.setnSequences(100);
+        gen.setSequenceLength(30);
+        gen.setnDistinctItems(20);
+        spmfFile = File.createTempFile("sequences", ".spmf");
+        spmfFile.deleteOnExit();
+        sequences = gen.generate(spmfFile);
+    }
+
+    @Test
+    public void testScanMatchesIterator() throws Exception {
+        int[][] expected = sequences;
+        SPMFSequenceSource source = new SPMFSequenceSource(spmfFile);
+        Assert.assertEquals(expected.length, source.size());
+        Assert.assertArrayEquals(expected, source.toArray());
+
+        final List<int[]> scanned = new ArrayList<>();
+        source.scan((items, length) -> {
+            scanned.add(Arrays.copyOf(items, length));
+            return true;
+        });
+        Assert.assertArrayEquals(expected, scanned.toArray(new int[0][]));
+    }
+
+    @Test
+    public void testEarlyStopClosesFile() throws Exception {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        Assume.assumeTrue(os instanceof UnixOperatingSystemMXBean);
+        UnixOperatingSystemMXBean unix = (UnixOperatingSystemMXBean) os;
+
+        SPMFSequenceSource source = new SPMFSequenceSource(spmfFile);
+        final int nScans = 200;
+        long openBefore = unix.getOpenFileDescriptorCount();
+        for (int i = 0; i < nScans; i++) {
+            final int[] nVisited = new int[1];
+            source.scan((items, length) -> ++nVisited[0] < 3);
+            Assert.assertEquals(3, nVisited[0]);
+
+            SPMFSequenceSource.SequenceIterator iter = source.iterator();
+            Assert.assertTrue(iter.hasNext());
+            iter.next();
+            iter.close();
+            Assert.assertFalse(iter.hasNext());
+        }
+        //a leak would hold one file open per scan
+        Assert.assertTrue(unix.getOpenFileDescriptorCount() - openBefore < nScans);
+    }
+
+    @Test
+    public void testParametersParseOnce() {
+        SPMParameters params = new SPMParameters(new SPMFSequenceSource(spmfFile), 2);
+        int[][] inMemory = params.getSequences();
+        Assert.assertArrayEquals(sequences, inMemory);
+        Assert.assertSame(inMemory, params.getSequences());
+    }
+
+}
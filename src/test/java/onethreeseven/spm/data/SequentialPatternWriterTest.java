@@ -0,0 +1,78 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.model.CoveredSequentialPattern;
+import onethreeseven.spm.model.RepSeq;
+import onethreeseven.spm.model.SequentialPattern;
+import org.junit.Assert;
+import org.junit.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test {@link SequentialPatternWriter}.
+ * @author Luke Bermingham
+ */
+public class SequentialPatternWriterTest {
+
+    @Test
+    public void testSameAsToString() throws Exception {
+        File file = File.createTempFile("patterns", ".txt");
+        file.deleteOnExit();
+
+        //enough patterns that the buffer fills up a few times, including one longer than the buffer
+        Random rand = new Random(137);
+        List<SequentialPattern> patterns = new ArrayList<>();
+        patterns.add(new SequentialPattern(new int[]{0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}, 1));
+        patterns.add(new SequentialPattern(new int[0], 0));
+        patterns.add(new CoveredSequentialPattern(new int[]{35244, 35246, 32297}, 6, 12));
+        patterns.add(new RepSeq(4, 2, 7, 8));
+        int[] huge = new int[300000];
+        for (int i = 0; i < huge.length; i++) {
+            huge[i] = rand.nextInt();
+        }
+        patterns.add(new SequentialPattern(huge, 2));
+        for (int i = 0; i < 200000; i++) {
+            int[] sequence = new int[1 + rand.nextInt(10)];
+            for (int j = 0; j < sequence.length; j++) {
+                sequence[j] = rand.nextInt(10000000);
+            }
+            patterns.add(new SequentialPattern(sequence, rand.nextInt(1000)));
+        }
+
+        SequentialPatternWriter writer = new SequentialPatternWriter(file);
+        for (SequentialPattern pattern : patterns) {
+            writer.write(pattern);
+        }
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        Assert.assertEquals(patterns.size(), lines.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            Assert.assertEquals(patterns.get(i).toString(), lines.get(i));
+        }
+    }
+
+    @Test
+    public void testAppends() throws Exception {
+        File file = File.createTempFile("patterns", ".txt");
+        file.deleteOnExit();
+
+        SequentialPatternWriter writer = new SequentialPatternWriter(file);
+        writer.write(new SequentialPattern(new int[]{1, 2}, 3));
+        writer.close();
+
+        //a second writer adds to the end of the file, the raw overload writes the same format
+        writer = new SequentialPatternWriter(file);
+        writer.write(new int[]{4, 5, 6, 99}, 3, 2);
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        Assert.assertEquals(2, lines.size());
+        Assert.assertEquals(new SequentialPattern(new int[]{1, 2}, 3).toString(), lines.get(0));
+        Assert.assertEquals(new SequentialPattern(new int[]{4, 5, 6}, 2).toString(), lines.get(1));
+    }
+
+}
@@ -0,0 +1,147 @@
+package onethreeseven.spm.data;
+
+import onethreeseven.spm.algorithm.ACSpan;
+import onethreeseven.spm.algorithm.SPMParameters;
+import onethreeseven.spm.model.SequentialPattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Test {@link SyntheticSequenceGenerator}.
+ * @author Luke Bermingham
+ */
+public class SyntheticSequenceGeneratorTest {
+
+    private static SyntheticSequenceGenerator makeGenerator(){
+        SyntheticSequenceGenerator gen = new SyntheticSequenceGenerator();
+        gen.setnSequences(500);
+        gen.setSequenceLength(20, 60);
+        gen.setnDistinctItems(100);
+        gen.setItemSkew(1.2);
+        gen.setPatternSkew(0.8);
+        gen.setSeed(42);
+        return gen;
+    }
+
+    private static boolean containsContiguous(int[] sequence, int[] pattern){
+        for (int i = 0; i + pattern.length <= sequence.length; i++) {
+            if(Arrays.equals(sequence, i, i + pattern.length, pattern, 0, pattern.length)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testDeterministic() {
+        int[][] a = makeGenerator().toArray();
+        int[][] b = makeGenerator().toArray();
+        Assert.assertArrayEquals(a, b);
+
+        SyntheticSequenceGenerator other = makeGenerator();
+        other.setSeed(43);
+        Assert.assertFalse(Arrays.deepEquals(a, other.toArray()));
+    }
+
+    @Test
+    public void testLengthsAndSkew() {
+        int[][] seqs = makeGenerator().toArray();
+        Assert.assertEquals(500, seqs.length);
+        int[] counts = new int[101];
+        for (int[] seq : seqs) {
+            Assert.assertTrue(seq.length >= 20 && seq.length <= 60);
+            for (int item : seq) {
+                counts[item]++;
+            }
+        }
+        //with a zipf skew the most frequent item is far more frequent than a rare one
+        Assert.assertTrue(counts[1] > 10 * Math.max(1, counts[100]));
+    }
+
+    @Test
+    public void testPlantedPatterns() {
+        SyntheticSequenceGenerator gen = makeGenerator();
+        //items outside of the background universe, so the planted support is exact
+        final int[] patternA = new int[]{1001, 1002, 1003, 1004};
+        final int[] patternB = new int[]{2001, 2002};
+        gen.plantPattern(patternA, 37);
+        gen.plantPattern(patternB, 250);
+
+        int supportA = 0;
+        int supportB = 0;
+        for (int[] seq : gen) {
+            supportA += containsContiguous(seq, patternA) ? 1 : 0;
+            supportB += containsContiguous(seq, patternB) ? 1 : 0;
+        }
+        Assert.assertEquals(37, supportA);
+        Assert.assertEquals(250, supportB);
+
+        //the miner should find the ground truth
+        Collection<SequentialPattern> mined = new ACSpan().run(new SPMParameters(gen, 30));
+        List<SequentialPattern> planted = gen.getPlantedPatterns();
+        for (SequentialPattern p : planted) {
+            Assert.assertTrue(mined.contains(p));
+        }
+    }
+
+    @Test
+    public void testFewerSequencesThanPlanted() {
+        SyntheticSequenceGenerator gen = makeGenerator();
+        gen.plantPattern(new int[]{1001, 1002}, 50);
+        gen.setnSequences(50);
+        try{
+            //the planted support could no longer be met, so the ground truth would be wrong
+            gen.setnSequences(49);
+            Assert.fail("Expected fewer sequences than a planted support to be rejected.");
+        }catch (IllegalArgumentException e){
+            Assert.assertEquals(50, gen.size());
+        }
+    }
+
+    @Test
+    public void testNoItemsOrPatternsRejected() {
+        SyntheticSequenceGenerator gen = makeGenerator();
+        //each of these would leave a sampler with nothing to draw from
+        Runnable[] invalid = new Runnable[]{
+                () -> gen.setnDistinctItems(0),
+                () -> gen.setBackgroundPatterns(0, 10),
+                () -> gen.setBackgroundPatterns(10, 0)
+        };
+        for (Runnable setter : invalid) {
+            try{
+                setter.run();
+                Assert.fail("Expected the setting to be rejected.");
+            }catch (IllegalArgumentException ignored){
+            }
+        }
+        //the generator is still usable
+        Assert.assertEquals(gen.size(), gen.toArray().length);
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        SyntheticSequenceGenerator gen = makeGenerator();
+        gen.plantPattern(new int[]{500, 501}, 10);
+        File spmf = File.createTempFile("synthetic", ".spmf");
+        File bin = File.createTempFile("synthetic", ".bin");
+        try{
+            long nItems = gen.write(spmf);
+            Assert.assertEquals(nItems, gen.writeBinary(bin));
+            int[][] expected = gen.toArray();
+            Assert.assertArrayEquals(expected, new SPMFParser().parseSequences(spmf));
+            try(MappedSequenceDb db = new MappedSequenceDb(bin)){
+                Assert.assertEquals(nItems, db.getNumItems());
+                Assert.assertArrayEquals(expected, db.toArray());
+            }
+        }finally {
+            spmf.delete();
+            bin.delete();
+        }
+    }
+
+}
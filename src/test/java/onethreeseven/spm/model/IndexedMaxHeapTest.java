@@ -0,0 +1,65 @@
+package onethreeseven.spm.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Test {@link IndexedMaxHeap}
+ * @author Luke Bermingham
+ */
+public class IndexedMaxHeapTest {
+
+    @Test
+    public void testTiesGoToSmallestId(){
+        IndexedMaxHeap heap = new IndexedMaxHeap(5);
+        heap.add(3, 7);
+        heap.add(1, 7);
+        heap.add(4, 2);
+        heap.add(0, 9);
+        Assert.assertEquals(0, heap.poll());
+        Assert.assertEquals(1, heap.poll());
+        Assert.assertEquals(3, heap.poll());
+        Assert.assertEquals(4, heap.poll());
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testMatchesSortedSet(){
+        final int capacity = 500;
+        final int[] keys = new int[capacity];
+        //reference ordering: largest key first, then smallest id
+        TreeSet<Integer> expected = new TreeSet<>((a, b) -> keys[a] != keys[b] ?
+                Integer.compare(keys[b], keys[a]) : Integer.compare(a, b));
+        IndexedMaxHeap heap = new IndexedMaxHeap(capacity);
+        Random rand = new Random(137);
+
+        for (int op = 0; op < 20000; op++) {
+            int id = rand.nextInt(capacity);
+            switch (rand.nextInt(4)){
+                case 0:
+                case 1:
+                    //add or re-key
+                    expected.remove(id);
+                    keys[id] = rand.nextInt(50);
+                    expected.add(id);
+                    heap.add(id, keys[id]);
+                    break;
+                case 2:
+                    Assert.assertEquals(expected.remove(id), heap.remove(id));
+                    break;
+                default:
+                    if(!expected.isEmpty()){
+                        Assert.assertEquals((int) expected.pollFirst(), heap.poll());
+                    }
+            }
+            Assert.assertEquals(expected.size(), heap.size());
+            if(!expected.isEmpty()){
+                Assert.assertEquals((int) expected.first(), heap.peek());
+            }
+        }
+    }
+
+}
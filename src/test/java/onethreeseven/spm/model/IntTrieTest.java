@@ -0,0 +1,238 @@
+package onethreeseven.spm.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.Arrays;
+
+/**
+ * Test for {@link IntTrie}
+ * @author Luke Bermingham
+ */
+public class IntTrieTest {
+
+    @Test
+    public void testBuildAndQueryTrie() throws Exception {
+        //note: frequency only increases for the last node in the sequence
+        IntTrie t = new IntTrie();
+        t.add(new int[]{1});
+        t.add(new int[]{2, 3});
+        t.add(new int[]{2, 4, 5});
+        t.add(new int[]{2, 4, 6});
+        t.add(new int[]{2, 4, 7});
+        t.add(new int[]{8});
+        t.add(new int[]{8, 7});
+        t.add(new int[]{8, 7, 7});
+        //Assertions
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{1}));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{2, 3}));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{2, 4}));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{2, 4, 6}));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{8, 7, 7}));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{8, 7}));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{8}));
+        Assert.assertEquals(0, t.getFrequencyOf(new int[]{9}));
+    }
+
+    @Test
+    public void testQueryWindow() throws Exception {
+        IntTrie t = new IntTrie();
+        int[] sequence = new int[]{5, 1, 2, 3, 5};
+        //add the window {1,2,3} without copying it out of the sequence
+        Assert.assertTrue(t.add(sequence, 1, 3, 3, false, false));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{1, 2, 3}));
+        Assert.assertEquals(1, t.getFrequencyOf(sequence, 1, 2));
+        Assert.assertEquals(0, t.getFrequencyOf(sequence, 0, 2));
+    }
+
+    @Test
+    public void testAddLockedSequence() throws Exception{
+        IntTrie t = new IntTrie();
+        //test that we can add a locked sequence
+        Assert.assertTrue(t.add(new int[]{1, 2, 3}, 3, true, false));
+        //test that adding it again is not possible
+        Assert.assertFalse(t.add(new int[]{1, 2, 3}, 3, true, false));
+        //double check by checking the count of the sequence
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{1, 2, 3}));
+        //test we can add a variant of the original sequence
+        Assert.assertTrue(t.add(new int[]{1, 2, 4}, 3, true, false));
+        Assert.assertEquals(1, t.getFrequencyOf(new int[]{1, 2, 4}));
+        //once unlocked the original sequence can be counted again
+        t.unlockAll();
+        Assert.assertTrue(t.add(new int[]{1, 2, 3}, 3, true, false));
+        Assert.assertEquals(2, t.getFrequencyOf(new int[]{1, 2, 3}));
+    }
+
+    @Test
+    public void testClosedPatternClosure() throws Exception {
+        IntTrie t = new IntTrie();
+
+        //add some length 1 sequences
+        t.add(new int[]{1});
+        t.add(new int[]{1});
+        t.add(new int[]{2});
+        t.add(new int[]{3});
+        //add some length 2 sequences that
+        t.add(new int[]{1, 2});
+        t.add(new int[]{1, 2});
+        t.add(new int[]{1, 3});
+        t.add(new int[]{1, 4});
+        //check which sequences should correctly supersede
+        Assert.assertTrue(t.supersede(new int[]{1, 2}, 2, IPatternClosure.CLOSED));
+        Assert.assertEquals(2, t.getFrequencyOf(new int[]{1, 2}));
+
+        Assert.assertFalse(t.supersede(new int[]{1, 3}, 2, IPatternClosure.CLOSED));
+        Assert.assertEquals(0, t.getFrequencyOf(new int[]{1, 3}));
+
+        Assert.assertFalse(t.supersede(new int[]{1, 4}, 2, IPatternClosure.CLOSED));
+        Assert.assertEquals(0, t.getFrequencyOf(new int[]{1, 4}));
+
+        Assert.assertEquals(2, t.getFrequencyOf(new int[]{1}));
+    }
+
+    @Test
+    public void testPatternIterator() throws Exception {
+        IntTrie t = new IntTrie();
+        t.add(new int[]{1, 2, 3});
+        t.add(new int[]{1, 4});
+        IntTrieIterator iter = t.getPatternIterator(false);
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, iter.next());
+        Assert.assertArrayEquals(new int[]{1, 4}, iter.next());
+        Assert.assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testHighFanOut() throws Exception {
+        IntTrie t = new IntTrie();
+        final int nItems = 1000;
+        for (int i = 0; i < nItems; i++) {
+            t.add(new int[]{i, i + 1});
+        }
+        //remove every other first level node, this exercises the hashed child index
+        for (int i = 0; i < nItems; i += 2) {
+            Assert.assertTrue(t.remove1stLevelNode(i));
+        }
+        for (int i = 0; i < nItems; i++) {
+            int expected = (i % 2 == 0) ? 0 : 1;
+            Assert.assertEquals(expected, t.getFrequencyOf(new int[]{i}));
+            Assert.assertEquals(expected, t.getFrequencyOf(new int[]{i, i + 1}));
+        }
+        //re-adding a removed node works and iteration still visits children in insertion order
+        Assert.assertTrue(t.add(new int[]{0}));
+        IntTrieIterator iter = t.getPatternIterator(false);
+        int nPaths = 0;
+        int lastFirstItem = -1;
+        while(iter.hasNext()){
+            int[] pattern = iter.next();
+            if(pattern[0] != 0){
+                Assert.assertTrue(pattern[0] > lastFirstItem);
+                lastFirstItem = pattern[0];
+            }
+            nPaths++;
+        }
+        Assert.assertEquals(nItems / 2 + 1, nPaths);
+    }
+
+    @Test
+    public void testSubPatternIterator() throws Exception {
+        IntTrie t = new IntTrie();
+        t.add(new int[]{1, 2, 3});
+        t.add(new int[]{1, 4});
+        t.add(new int[]{5});
+        IntTrieIterator iter = t.getPatternIterator(true);
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, iter.next());
+        Assert.assertArrayEquals(new int[]{1, 2}, iter.next());
+        Assert.assertArrayEquals(new int[]{1}, iter.next());
+        Assert.assertArrayEquals(new int[]{1, 4}, iter.next());
+        Assert.assertArrayEquals(new int[]{1}, iter.next());
+        Assert.assertTrue(iter.hasNext());
+        Assert.assertArrayEquals(new int[]{5}, iter.next());
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertFalse(iter.advance());
+    }
+
+    @Test
+    public void testAdvanceReusesItems() throws Exception {
+        IntTrie t = new IntTrie();
+        t.add(new int[]{1, 2, 3});
+        t.add(new int[]{1, 2, 3});
+        t.add(new int[]{4, 5});
+        IntTrieIterator iter = t.getPatternIterator(false);
+
+        Assert.assertTrue(iter.advance());
+        final int[] items = iter.getItems();
+        Assert.assertEquals(3, iter.getLength());
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, Arrays.copyOf(items, iter.getLength()));
+        Assert.assertEquals(2, iter.getCount());
+
+        Assert.assertTrue(iter.advance());
+        Assert.assertSame(items, iter.getItems());
+        Assert.assertArrayEquals(new int[]{4, 5}, iter.copyPattern());
+        Assert.assertEquals(1, iter.getCount());
+
+        Assert.assertFalse(iter.advance());
+        Assert.assertEquals(0, iter.getLength());
+    }
+
+    @Test
+    public void testFirstItemIterator() throws Exception {
+        IntTrie t = new IntTrie();
+        t.add(new int[]{1, 2});
+        t.add(new int[]{3, 4, 5});
+        t.add(new int[]{3, 6});
+        t.add(new int[]{7});
+
+        IntTrieIterator iter = t.getPatternIterator(3, false);
+        Assert.assertArrayEquals(new int[]{3, 4, 5}, iter.next());
+        Assert.assertArrayEquals(new int[]{3, 6}, iter.next());
+        Assert.assertFalse(iter.hasNext());
+
+        //a 1st level leaf is a path on its own
+        iter = t.getPatternIterator(7, true);
+        Assert.assertArrayEquals(new int[]{7}, iter.next());
+        Assert.assertFalse(iter.hasNext());
+
+        Assert.assertFalse(t.getPatternIterator(8, true).hasNext());
+    }
+
+    @Test
+    public void testNumNodes() throws Exception {
+        IntTrie t = new IntTrie();
+        Assert.assertEquals(0, t.getNumNodes());
+        t.add(new int[]{1, 2, 3});
+        t.add(new int[]{1, 2, 4});
+        t.add(new int[]{5, 6});
+        Assert.assertEquals(6, t.getNumNodes());
+        //an existing path adds no nodes
+        t.add(new int[]{1, 2});
+        Assert.assertEquals(6, t.getNumNodes());
+
+        //removing a node removes its whole subtree
+        t.supersede(new int[]{1, 2}, 3);
+        Assert.assertEquals(3, t.getNumNodes());
+        t.remove1stLevelNode(5);
+        Assert.assertEquals(1, t.getNumNodes());
+        t.remove1stLevelNode(1);
+        Assert.assertEquals(0, t.getNumNodes());
+        Assert.assertTrue(t.isEmpty());
+    }
+
+    @Test
+    public void testRemoveBelow() throws Exception {
+        IntTrie t = new IntTrie();
+        t.add(new int[]{1, 2, 3});
+        t.add(new int[]{1, 2});
+        t.add(new int[]{1});
+        t.add(new int[]{4});
+        t.add(new int[]{4});
+        t.add(new int[]{4, 5});
+        //counts: 1=2, 1,2=2, 1,2,3=1, 4=2, 4,5=1
+        Assert.assertEquals(2, t.removeBelow(2));
+        Assert.assertEquals(3, t.getNumNodes());
+        Assert.assertEquals(2, t.getFrequencyOf(new int[]{1, 2}));
+        Assert.assertEquals(0, t.getFrequencyOf(new int[]{1, 2, 3}));
+        Assert.assertEquals(0, t.getFrequencyOf(new int[]{4, 5}));
+        //removing a node takes its subtree with it
+        Assert.assertEquals(3, t.removeBelow(3));
+        Assert.assertTrue(t.isEmpty());
+    }
+}
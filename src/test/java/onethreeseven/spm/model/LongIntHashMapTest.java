@@ -0,0 +1,68 @@
+package onethreeseven.spm.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Test {@link LongIntHashMap}
+ * @author Luke Bermingham
+ */
+public class LongIntHashMapTest {
+
+    @Test
+    public void testMatchesHashMap(){
+        LongIntHashMap map = new LongIntHashMap();
+        HashMap<Long, Integer> expected = new HashMap<>();
+        Random rand = new Random(137);
+
+        for (int op = 0; op < 200000; op++) {
+            //small key range so there are plenty of collisions and removals of present keys
+            long key = ((long) rand.nextInt(40) << 32) | rand.nextInt(40);
+            switch (rand.nextInt(4)){
+                case 0:
+                    int value = rand.nextInt();
+                    map.put(key, value);
+                    expected.put(key, value);
+                    break;
+                case 1:
+                    Assert.assertEquals((int) expected.merge(key, 3, Integer::sum), map.addTo(key, 3));
+                    break;
+                case 2:
+                    Assert.assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    Assert.assertEquals((int) expected.getOrDefault(key, -1), map.get(key, -1));
+                    Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+
+        //every remaining key is still reachable after all the removals
+        for (Long key : expected.keySet()) {
+            Assert.assertEquals((int) expected.get(key), map.get(key, -1));
+        }
+    }
+
+    @Test
+    public void testListMap(){
+        LongIntListMap map = new LongIntListMap();
+        map.add(5L, 1);
+        Assert.assertFalse(map.add(5L, 1));
+        map.add(5L, 2);
+        map.add(-7L, 2);
+        for (int i = 0; i < 100; i++) {
+            map.add(9L, i);
+        }
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(100, map.getListSize(9L));
+        Assert.assertArrayEquals(new int[]{1, 2}, map.remove(5L));
+        Assert.assertNull(map.remove(5L));
+        Assert.assertFalse(map.containsKey(5L));
+        Assert.assertArrayEquals(new int[]{2}, map.remove(-7L));
+        Assert.assertEquals(1, map.size());
+    }
+
+}
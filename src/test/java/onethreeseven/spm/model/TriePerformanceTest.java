@@ -81,4 +81,41 @@ public class TriePerformanceTest {
         System.out.println("Hashset matched: " + nContained);
     }
 
+    /**
+     * Time enumerating every path of a Trie with (at least) a million nodes.
+     * The first pass includes JIT warm-up, so a few passes are timed.
+     */
+    @Test
+    public void testPathEnumeration(){
+        final int nNodes = 1000000;
+        final Random rand = new Random(137);
+        final Trie<Integer> t = new Trie<>();
+        final Integer[] sequence = new Integer[3];
+        //a wide alphabet so the upper levels of the Trie have a high fan-out
+        int nAdded = 0;
+        while(nAdded < nNodes){
+            for (int i = 0; i < sequence.length; i++) {
+                sequence[i] = rand.nextInt(2000);
+            }
+            //each new path adds at least one node
+            if(t.getFrequencyOf(sequence) == 0){
+                nAdded++;
+            }
+            t.add(sequence);
+        }
+
+        for (int pass = 1; pass <= 3; pass++) {
+            long startTime = System.currentTimeMillis();
+            int nPaths = 0;
+            TrieIterator<Integer> iter = t.getPatternIterator(false);
+            while(iter.hasNext()){
+                iter.next();
+                nPaths++;
+            }
+            long endTime = System.currentTimeMillis();
+            System.out.println("Pass " + pass + ", enumerating " + nPaths + " paths of a Trie with at least " +
+                    nNodes + " nodes took: " + (endTime - startTime) + "ms");
+        }
+    }
+
 }
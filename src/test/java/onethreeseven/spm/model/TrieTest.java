@@ -2,6 +2,9 @@ package onethreeseven.spm.model;
 
 import org.junit.Assert;
 import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 
 /**
  * Test for {@link Trie}
@@ -80,4 +83,87 @@ public class TrieTest {
         //check that removing the A,C and A,D updated the count of singleton A
         Assert.assertTrue(t.getFrequencyOf(new Character[]{'A'}) == 2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHighFanOut() throws Exception {
+        Trie<Integer> t = new Trie<>();
+        final int nItems = 1000;
+        for (int i = 0; i < nItems; i++) {
+            t.add(new Integer[]{i, i + 1});
+        }
+        for (int i = 0; i < nItems; i += 2) {
+            Assert.assertTrue(t.remove1stLevelNode(i));
+        }
+        for (int i = 0; i < nItems; i++) {
+            int expected = (i % 2 == 0) ? 0 : 1;
+            Assert.assertEquals(expected, t.getFrequencyOf(new Integer[]{i}));
+            Assert.assertEquals(expected, t.getFrequencyOf(new Integer[]{i, i + 1}));
+        }
+    }
+
+    @Test
+    public void testNodesAreDistinct() throws Exception {
+        //nodes in the same place in two Tries are still different nodes
+        Trie<Integer> a = new Trie<>();
+        a.add(new Integer[]{1, 2});
+        Trie<Integer> b = new Trie<>();
+        b.add(new Integer[]{7, 8});
+        ArrayList<Trie<Integer>.TrieNode> pathA = a.getPathIter().next();
+        ArrayList<Trie<Integer>.TrieNode> pathB = b.getPathIter().next();
+        Assert.assertFalse(pathA.get(0).removeChild(pathB.get(1)));
+        Assert.assertEquals(1, a.getFrequencyOf(new Integer[]{1, 2}));
+        Assert.assertTrue(pathA.get(0).removeChild(pathA.get(1)));
+        Assert.assertEquals(0, a.getFrequencyOf(new Integer[]{1, 2}));
+
+        //a node removed while iterating must not be confused with a node added after it
+        Trie<Integer> t = new Trie<>();
+        t.add(new Integer[]{1, 2});
+        t.add(new Integer[]{3});
+        Iterator<ArrayList<Trie<Integer>.TrieNode>> iter = t.getPathIter();
+        Assert.assertEquals(2, iter.next().size());
+        Assert.assertTrue(t.remove1stLevelNode(1));
+        t.add(new Integer[]{4});
+        t.add(new Integer[]{6});
+        int nPaths = 0;
+        while(iter.hasNext()){
+            iter.next();
+            nPaths++;
+        }
+        Assert.assertEquals(3, nPaths);
+    }
+
+    @Test
+    public void testPatternIterator() throws Exception {
+        Trie<Character> t = new Trie<>();
+        t.add(new Character[]{'t', 'o'});
+        t.add(new Character[]{'t', 'e', 'a'});
+        t.add(new Character[]{'t', 'e', 'n'});
+        t.add(new Character[]{'i'});
+
+        TrieIterator<Character> iter = t.getPatternIterator(false);
+        Assert.assertEquals(Arrays.asList('t', 'o'), iter.next());
+        Assert.assertEquals(Arrays.asList('t', 'e', 'a'), iter.next());
+        Assert.assertEquals(Arrays.asList('t', 'e', 'n'), iter.next());
+        Assert.assertEquals(Arrays.asList('i'), iter.next());
+        Assert.assertFalse(iter.hasNext());
+
+        Assert.assertFalse(new Trie<Character>().getPatternIterator(true).hasNext());
+    }
+
+    @Test
+    public void testUnParentWhileIterating() throws Exception {
+        Trie<Character> t = new Trie<>();
+        t.add(new Character[]{'a', 'b', 'c'});
+        t.add(new Character[]{'a', 'd'});
+        t.add(new Character[]{'a', 'e'});
+
+        TrieIterator<Character> iter = t.getPatternIterator(false);
+        ArrayList<Character> first = iter.next();
+        Assert.assertEquals(Arrays.asList('a', 'b', 'c'), first);
+        //cut 'b' away from 'a', the iterator should carry on with the siblings of 'b'
+        Assert.assertTrue(iter.unParent(first.toArray(new Character[0]), 1));
+        Assert.assertEquals(Arrays.asList('a', 'd'), iter.next());
+        Assert.assertEquals(Arrays.asList('a', 'e'), iter.next());
+        Assert.assertFalse(iter.hasNext());
+    }
+}